@@ -0,0 +1,124 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seanquinn.redi2.billing.impl.BillingServiceImpl;
+import org.seanquinn.redi2.domain.EngagementMix;
+import org.seanquinn.redi2.io.BufferedMinuteFileReader;
+import org.seanquinn.redi2.io.MappedMinuteFileReader;
+import org.seanquinn.redi2.io.MinuteFileConverter;
+import org.seanquinn.redi2.io.MinuteFileReader;
+
+/**
+ * Benchmarks reading a minutes file through {@link Processor#readFile(String)}.
+ * The file is written once per trial to a temporary location, with one line
+ * per engagement of the chosen mix, and read through either the buffered or
+ * the memory-mapped {@link MinuteFileReader}; or converted to the binary
+ * format, and read through {@link Processor#readBinaryFile(String)}.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ProcessorBenchmark {
+
+	@Param({ "1", "1000", "100000", "10000000" })
+	private int batchSize;
+
+	@Param({ "SHORT", "MEDIUM", "LONG", "MIXED" })
+	private EngagementMix mix;
+
+	@Param({ "BUFFERED", "MAPPED", "BINARY" })
+	private String reader;
+
+	private Processor processor;
+
+	private File file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		final MinuteFileReader fileReader = "MAPPED".equals(reader)
+				? new MappedMinuteFileReader()
+				: new BufferedMinuteFileReader();
+		processor = new Processor(new BillingServiceImpl(), fileReader);
+
+		file = File.createTempFile("redi2-minutes-", ".txt");
+		final BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+		try {
+			for (final long minutes : mix.minutes(batchSize)) {
+				writer.write(Long.toString(minutes));
+				writer.newLine();
+			}
+		}
+		finally {
+			writer.close();
+		}
+
+		if ("BINARY".equals(reader)) {
+			final File binary = File.createTempFile("redi2-engagements-", ".bin");
+			new MinuteFileConverter().convert(file.getPath(), binary.getPath());
+			file.delete();
+			file = binary;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	@Benchmark
+	public Object readFile() throws IOException {
+		if ("BINARY".equals(reader)) {
+			return processor.readBinaryFile(file.getPath());
+		}
+		return processor.readFile(file.getPath());
+	}
+}
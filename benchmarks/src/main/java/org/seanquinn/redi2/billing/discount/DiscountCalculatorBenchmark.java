@@ -0,0 +1,130 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.discount;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.domain.EngagementMix;
+
+/**
+ * Benchmarks both {@link DiscountCalculator discount calculators}, each fed
+ * with engagements from the tier it is applied to by the billing rules, as
+ * well as summing the digits of short engagements through
+ * {@link DigitAdditiveDiscountCalculator#getDigitSum(double)} against summing
+ * the boxed result of {@link DigitAdditiveDiscountCalculator#getDigits(double)},
+ * and the square root discount with and without a
+ * {@link MemoizingDiscountCalculator}.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiscountCalculatorBenchmark {
+
+	/** The size of the ring of engagements; must be a power of two. */
+	private static final int RING_SIZE = 1024;
+
+	private DigitAdditiveDiscountCalculator digitAdditive;
+
+	private DiscountCalculator squareRoot;
+
+	private DiscountCalculator memoizedSquareRoot;
+
+	private Engagement[] shortEngagements;
+
+	private Engagement[] mediumEngagements;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		digitAdditive = new DigitAdditiveDiscountCalculator();
+		squareRoot = new SquareRootDiscountCalculator();
+		memoizedSquareRoot = new MemoizingDiscountCalculator(squareRoot);
+
+		final List<Engagement> shorts = EngagementMix.SHORT.engagements(RING_SIZE);
+		shortEngagements = shorts.toArray(new Engagement[shorts.size()]);
+
+		final List<Engagement> mediums = EngagementMix.MEDIUM.engagements(RING_SIZE);
+		mediumEngagements = mediums.toArray(new Engagement[mediums.size()]);
+	}
+
+	@Benchmark
+	public BigDecimal digitAdditive() {
+		return digitAdditive.calculateDiscount(shortEngagements[index++ & (RING_SIZE - 1)]);
+	}
+
+	@Benchmark
+	public int digitSum() {
+		return digitAdditive.getDigitSum(shortEngagements[index++ & (RING_SIZE - 1)].getMinutes());
+	}
+
+	@Benchmark
+	public int digits() {
+		int sum = 0;
+		for (final Integer digit : digitAdditive.getDigits(shortEngagements[index++ & (RING_SIZE - 1)].getMinutes())) {
+			sum += digit;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public BigDecimal squareRoot() {
+		return squareRoot.calculateDiscount(mediumEngagements[index++ & (RING_SIZE - 1)]);
+	}
+
+	@Benchmark
+	public long squareRootInCents() {
+		return squareRoot.calculateDiscountInCents(mediumEngagements[index++ & (RING_SIZE - 1)].getLengthMs());
+	}
+
+	@Benchmark
+	public BigDecimal memoizedSquareRoot() {
+		return memoizedSquareRoot.calculateDiscount(mediumEngagements[index++ & (RING_SIZE - 1)]);
+	}
+
+	@Benchmark
+	public long memoizedSquareRootInCents() {
+		return memoizedSquareRoot.calculateDiscountInCents(mediumEngagements[index++ & (RING_SIZE - 1)].getLengthMs());
+	}
+}
@@ -0,0 +1,115 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seanquinn.redi2.billing.BatchBillingService;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.billing.rule.CostTable;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.domain.EngagementMix;
+import org.seanquinn.redi2.domain.id.RandomReportIdGenerator;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+/**
+ * Benchmarks billing a batch of lengths into an array of cents through
+ * {@link BatchBillingService#billBatch(long[], long[])}, against billing the
+ * same batch as {@link Engagement engagements} through
+ * {@link BillingServiceImpl#process(java.util.Collection)}. With
+ * {@code costTable} set, costs below the medium threshold are looked up from
+ * a prebuilt {@link CostTable}.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class BatchBillingServiceBenchmark {
+
+	@Param({ "1000", "100000", "10000000" })
+	private int batchSize;
+
+	@Param({ "SHORT", "MEDIUM", "LONG", "MIXED" })
+	private EngagementMix mix;
+
+	@Param({ "false", "true" })
+	private boolean costTable;
+
+	private BillingServiceImpl service;
+
+	private long[] lengthsMs;
+
+	private long[] outCents;
+
+	private List<Engagement> engagements;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if (costTable) {
+			final CostTable table = new CostTable(new BillingRuleFactory());
+			table.build();
+			service = new BillingServiceImpl(table, new RandomReportIdGenerator());
+		}
+		else {
+			service = new BillingServiceImpl();
+		}
+
+		final long[] minutes = mix.minutes(batchSize);
+		lengthsMs = new long[batchSize];
+		for (int i = 0; i < batchSize; i++) {
+			lengthsMs[i] = minutes[i] * TimeUtils.ONE_MINUTE_MS;
+		}
+		outCents = new long[batchSize];
+		engagements = mix.engagements(batchSize);
+	}
+
+	@Benchmark
+	public long billBatch() {
+		return service.billBatch(lengthsMs, outCents);
+	}
+
+	@Benchmark
+	public List<BillingReport> process() {
+		return service.process(engagements);
+	}
+}
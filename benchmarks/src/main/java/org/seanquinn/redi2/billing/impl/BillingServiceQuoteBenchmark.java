@@ -0,0 +1,120 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.metrics.DefaultBillingMetrics;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.billing.rule.CostTable;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.domain.EngagementMix;
+import org.seanquinn.redi2.domain.id.RandomReportIdGenerator;
+
+/**
+ * Benchmarks quoting a single {@link Engagement} through
+ * {@link BillingServiceImpl#quote(Engagement)}. Each invocation quotes the next
+ * engagement from a small, pre-generated ring so that the tiers of the mix are
+ * visited in turn. With {@code costTable} set, costs below the medium
+ * threshold are looked up from a prebuilt {@link CostTable}; with
+ * {@code cached} set, quotes are cached by a {@link CachingBillingService};
+ * and with {@code metrics} set, the service records
+ * {@link DefaultBillingMetrics}, timing every quote.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillingServiceQuoteBenchmark {
+
+	/** The size of the ring of engagements; must be a power of two. */
+	private static final int RING_SIZE = 1024;
+
+	@Param({ "SHORT", "MEDIUM", "LONG", "MIXED" })
+	private EngagementMix mix;
+
+	@Param({ "false", "true" })
+	private boolean costTable;
+
+	@Param({ "false", "true" })
+	private boolean cached;
+
+	@Param({ "false", "true" })
+	private boolean metrics;
+
+	private BillingService service;
+
+	private Engagement[] engagements;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final BillingServiceImpl impl;
+		if (costTable) {
+			final CostTable table = new CostTable(new BillingRuleFactory());
+			table.build();
+			impl = new BillingServiceImpl(table, new RandomReportIdGenerator());
+		}
+		else {
+			impl = new BillingServiceImpl();
+		}
+		if (metrics) {
+			impl.setMetrics(new DefaultBillingMetrics());
+		}
+		service = impl;
+		if (cached) {
+			service = new CachingBillingService(service);
+		}
+
+		final List<Engagement> values = mix.engagements(RING_SIZE);
+		engagements = values.toArray(new Engagement[values.size()]);
+	}
+
+	@Benchmark
+	public BigDecimal quote() {
+		final Engagement engagement = engagements[index++ & (RING_SIZE - 1)];
+		return service.quote(engagement);
+	}
+}
@@ -0,0 +1,94 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.domain.EngagementMix;
+
+/**
+ * Benchmarks {@link BillingRule#calculateCost(Engagement)} and
+ * {@link BillingRule#calculateCostInCents(long)} for each of the rules
+ * produced by the {@link BillingRuleFactory}; the {@code tier} parameter
+ * selects both the rule and the engagements that rule is applied to.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillingRuleBenchmark {
+
+	/** The size of the ring of engagements; must be a power of two. */
+	private static final int RING_SIZE = 1024;
+
+	@Param({ "SHORT", "MEDIUM", "LONG" })
+	private EngagementMix tier;
+
+	private BillingRule rule;
+
+	private Engagement[] engagements;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final List<Engagement> values = tier.engagements(RING_SIZE);
+		engagements = values.toArray(new Engagement[values.size()]);
+
+		final BillingRuleFactory factory = new BillingRuleFactory();
+		rule = factory.getRule(engagements[0]);
+	}
+
+	@Benchmark
+	public BigDecimal calculateCost() {
+		final Engagement engagement = engagements[index++ & (RING_SIZE - 1)];
+		return rule.calculateCost(engagement);
+	}
+
+	@Benchmark
+	public long calculateCostInCents() {
+		final Engagement engagement = engagements[index++ & (RING_SIZE - 1)];
+		return rule.calculateCostInCents(engagement.getLengthMs());
+	}
+}
@@ -0,0 +1,115 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.domain.EngagementMix;
+
+/**
+ * Regression benchmark for resolving the {@link BillingRule} of an
+ * {@link Engagement}. Run with {@code -prof gc}: resolving from a shared
+ * {@link BillingRuleFactory} should allocate nothing per operation, whereas
+ * building a factory per engagement (as the billing service once did)
+ * allocates the factory with its three default tiers, their rules and
+ * discount calculators, and the sorted list and thresholds the tiers are
+ * searched by; about 528 B/op. A figure far above that means the default
+ * tiers have grown something large, such as a memo of their discounts,
+ * which every {@code new BillingServiceImpl()} would pay for as well.
+ * <p>
+ * The shared factory is built with {@code tiers} tiers, so that the cost of
+ * the binary search of their thresholds may be compared between the three
+ * default tiers and a much larger configuration.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleResolutionBenchmark {
+
+	/** The size of the ring of engagements; must be a power of two. */
+	private static final int RING_SIZE = 1024;
+
+	@Param({ "3", "48" })
+	public int tiers;
+
+	private BillingRuleFactory factory;
+
+	private Engagement[] engagements;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if (tiers == 3) {
+			factory = new BillingRuleFactory();
+		}
+		else {
+			// ** Spread the thresholds over the same range as the default tiers.
+			final List<BillingTier> configured = new ArrayList<BillingTier>();
+			for (int i = 0; i < tiers; i++) {
+				configured.add(new BillingTier(i * 200000.0 / tiers, 1.0, 1.0, null));
+			}
+			factory = new BillingRuleFactory(configured);
+		}
+
+		final List<Engagement> values = EngagementMix.MIXED.engagements(RING_SIZE);
+		engagements = values.toArray(new Engagement[values.size()]);
+	}
+
+	@Benchmark
+	public BillingRule sharedFactory() {
+		return factory.getRule(engagements[index++ & (RING_SIZE - 1)]);
+	}
+
+	/**
+	 * Builds the default factory whatever the number of {@code tiers}, so
+	 * only its figures for the default three are meaningful.
+	 */
+	@Benchmark
+	public BillingRule factoryPerEngagement() {
+		return new BillingRuleFactory().getRule(engagements[index++ & (RING_SIZE - 1)]);
+	}
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+/**
+ * The mix of short, medium and long {@link Engagement engagements} used to
+ * drive the benchmarks. Each mix draws whole-minute lengths from the ranges
+ * delimited by the {@link BillingRuleFactory} thresholds, so that every
+ * benchmark exercises the same tier that production traffic would.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public enum EngagementMix {
+
+	/** Only engagements below the short engagement threshold. */
+	SHORT,
+
+	/** Only engagements between the short and medium thresholds. */
+	MEDIUM,
+
+	/** Only engagements at or beyond the medium engagement threshold. */
+	LONG,
+
+	/** An even blend of short, medium and long engagements. */
+	MIXED;
+
+	/** The seed used for generating data, so that runs are reproducible. */
+	private static final long SEED = 0x5EED2014L;
+
+	/**
+	 * Returns {@code count} lengths, in whole minutes, for this mix.
+	 *
+	 * @param count the number of lengths to generate.
+	 * @return the lengths, in minutes.
+	 */
+	public long[] minutes(final int count) {
+		final BillingRuleFactory factory = new BillingRuleFactory();
+		final long shortThreshold = (long) factory.getShortEngagementThreshold();
+		final long mediumThreshold = (long) factory.getMediumEngagementThreshold();
+
+		final Random random = new Random(SEED);
+		final long[] minutes = new long[count];
+		for (int i = 0; i < count; i++) {
+			EngagementMix tier = this;
+			if (tier == MIXED) {
+				tier = values()[i % 3];
+			}
+
+			switch (tier) {
+			case SHORT:
+				minutes[i] = nextLong(random, 0, shortThreshold);
+				break;
+			case MEDIUM:
+				minutes[i] = nextLong(random, shortThreshold, mediumThreshold);
+				break;
+			default:
+				minutes[i] = nextLong(random, mediumThreshold, mediumThreshold * 10);
+				break;
+			}
+		}
+		return minutes;
+	}
+
+	/**
+	 * Returns {@code count} {@link Engagement engagements} for this mix.
+	 *
+	 * @param count the number of engagements to generate.
+	 * @return the engagements.
+	 */
+	public List<Engagement> engagements(final int count) {
+		final long[] minutes = minutes(count);
+		final List<Engagement> engagements = new ArrayList<Engagement>(count);
+		for (final long value : minutes) {
+			engagements.add(new Engagement(value * TimeUtils.ONE_MINUTE_MS));
+		}
+		return engagements;
+	}
+
+	/**
+	 * Returns a pseudo-random long in the range {@code [min, max)}.
+	 */
+	private static long nextLong(final Random random, final long min, final long max) {
+		return min + (long) (random.nextDouble() * (max - min));
+	}
+}
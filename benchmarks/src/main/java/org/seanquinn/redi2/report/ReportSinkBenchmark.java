@@ -0,0 +1,108 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seanquinn.redi2.billing.impl.BillingServiceImpl;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.EngagementMix;
+
+/**
+ * Benchmarks writing an invoice through a {@link ConsoleReportSink}, against
+ * printing it a line at a time with {@code MessageFormat.format} and
+ * {@code println} as the processor did before. Both write to a stream which
+ * discards its output, so that only rendering and locking are measured.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportSinkBenchmark {
+
+	/** The size of the ring of reports; must be a power of two. */
+	private static final int RING_SIZE = 1024;
+
+	private BillingReport[] reports;
+
+	private PrintStream out;
+
+	private ReportSink sink;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		final List<BillingReport> billed = new BillingServiceImpl().process(EngagementMix.MIXED.engagements(RING_SIZE));
+		reports = billed.toArray(new BillingReport[billed.size()]);
+
+		out = new PrintStream(new OutputStream() {
+			@Override
+			public void write(final int b) throws IOException {
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) throws IOException {
+			}
+		}, true);
+		sink = new ConsoleReportSink(out);
+	}
+
+	@Benchmark
+	public void writeInvoice() throws IOException {
+		sink.writeInvoice(reports[index++ & (RING_SIZE - 1)]);
+	}
+
+	@Benchmark
+	public void println() {
+		final BillingReport report = reports[index++ & (RING_SIZE - 1)];
+		out.println(MessageFormat.format("INVOICE", new Object[0]));
+		out.println(MessageFormat.format("==========================", new Object[0]));
+		out.println(MessageFormat.format("Report ID:     {0}", report.getUuidAsString()));
+		out.println(MessageFormat.format("Billed For:    {0} hrs.", report.getEngagement().getHours()));
+		out.println(MessageFormat.format("Amount Billed: {0}", report.getBilledAsCurrency()));
+		out.println(MessageFormat.format("\n", new Object[0]));
+	}
+}
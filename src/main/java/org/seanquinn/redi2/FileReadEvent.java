@@ -0,0 +1,62 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the reading of a file of minutes (or of
+ * engagements) by a {@link Processor}. When a file is streamed, it is billed
+ * and rendered as it is read, so the event spans the
+ * {@code BillingBatch} and {@code Render} events of each chunk.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@Name("org.seanquinn.redi2.FileRead")
+@Label("File Read")
+@Category({ "Redi2", "Input" })
+@Description("A file of minutes or engagements read and parsed by the processor")
+@StackTrace(false)
+class FileReadEvent extends Event {
+
+	@Label("Path")
+	String path;
+
+	@Label("Binary")
+	@Description("Whether the file is a binary file of engagements")
+	boolean binary;
+
+	@Label("Streamed")
+	@Description("Whether the file was billed and rendered as it was read")
+	boolean streamed;
+
+	@Label("Engagements")
+	long engagements;
+}
@@ -0,0 +1,274 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.BillingStatistics;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.io.MinuteFileReader;
+import org.seanquinn.redi2.report.FileReportSink;
+import org.seanquinn.redi2.report.ReportSink;
+
+/**
+ * Processes many files of minutes in a single run, several at a time.
+ * <p>
+ * Each file is streamed by a {@link Processor} of its own on a bounded pool
+ * of workers, into a temporary file which holds its invoices and totals.
+ * The temporary files are appended to the sink in the order in which the
+ * files were passed, each under a heading naming its file, and deleted; so
+ * the output is the same however the work was scheduled. The combined
+ * totals of every file follow.
+ * </p>
+ * <p>
+ * No more than twice as many files as there are workers are processed (or
+ * held, waiting to be appended) at a time. A file which cannot be processed
+ * is reported, and left out of the combined totals.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class MultiFileProcessor {
+
+	private final BillingService billingService;
+
+	private final MinuteFileReader fileReader;
+
+	private final BillingRuleFactory ruleFactory;
+
+	private final int jobs;
+
+	/**
+	 * Instantiates a new processor which bills through the passed
+	 * {@link BillingService} and reads files through the passed
+	 * {@link MinuteFileReader}, {@code jobs} files at a time.
+	 *
+	 * @param billingService the billing service, shared by every file.
+	 * @param fileReader the reader used for files of minutes, shared by
+	 * 		every file.
+	 * @param ruleFactory the billing rule factory whose tiers statistics are
+	 * 		broken down by, for the whole run, even if the service's rules
+	 * 		are replaced.
+	 * @param jobs the number of files processed at a time.
+	 */
+	public MultiFileProcessor(final BillingService billingService, final MinuteFileReader fileReader,
+			final BillingRuleFactory ruleFactory, final int jobs) {
+		if (jobs < 1) {
+			throw new IllegalArgumentException("At least one file must be processed at a time.");
+		}
+		this.billingService = billingService;
+		this.fileReader = fileReader;
+		this.ruleFactory = ruleFactory;
+		this.jobs = jobs;
+	}
+
+	/**
+	 * Processes billing charges for each of the files at the passed paths,
+	 * writing the invoices and totals of each, followed by the combined
+	 * totals, to the passed {@link ReportSink}.
+	 *
+	 * @param paths the paths to the files.
+	 * @param reportSink the sink to which invoices are written.
+	 * @return the combined statistics of every file that was processed.
+	 * @throws IOException if the invoices cannot be written.
+	 */
+	public BillingStatistics process(final List<String> paths, final ReportSink reportSink) throws IOException {
+		final BillingStatistics combined = new BillingStatistics(ruleFactory);
+		final ExecutorService pool = Executors.newFixedThreadPool(jobs, new WorkerThreadFactory());
+		final Deque<Future<FileResult>> pending = new ArrayDeque<Future<FileResult>>();
+		try {
+			int next = 0;
+			while (next < paths.size() || !pending.isEmpty()) {
+				while (next < paths.size() && pending.size() < jobs * 2) {
+					pending.add(pool.submit(new FileTask(paths.get(next++))));
+				}
+				append(pending.remove(), reportSink, combined);
+			}
+		}
+		finally {
+			// ** Nothing is pending unless appending failed; discard the rest.
+			for (final Future<FileResult> future : pending) {
+				future.cancel(true);
+			}
+			pool.shutdownNow();
+			for (final Future<FileResult> future : pending) {
+				discard(future);
+			}
+		}
+
+		reportSink.writeHeading("ALL FILES (" + paths.size() + ")");
+		if (combined.getCount() > 0) {
+			reportSink.writeTotals(combined.getSum(), combined.getMean());
+		}
+		reportSink.flush();
+		return combined;
+	}
+
+	/**
+	 * Waits for a file to be processed, and appends its output to the sink
+	 * and its statistics to the combined statistics.
+	 *
+	 * @param future the future result of the file.
+	 * @param reportSink the sink.
+	 * @param combined the combined statistics.
+	 * @throws IOException if the output cannot be appended.
+	 */
+	private void append(final Future<FileResult> future, final ReportSink reportSink,
+			final BillingStatistics combined) throws IOException {
+		final FileResult result;
+		try {
+			result = future.get();
+		}
+		catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while processing files.");
+		}
+		catch (final ExecutionException ex) {
+			throw new IllegalStateException("Unexpected error processing a file.", ex.getCause());
+		}
+
+		reportSink.writeHeading("FILE: " + result.path);
+		if (result.output == null) {
+			return;
+		}
+		try {
+			final Reader reader = new FileReader(result.output);
+			try {
+				reportSink.writeAll(reader);
+			}
+			finally {
+				reader.close();
+			}
+		}
+		finally {
+			result.output.delete();
+		}
+		combined.combine(result.statistics);
+	}
+
+	/**
+	 * Deletes the output of a file which was processed, but will not be
+	 * appended.
+	 *
+	 * @param future the future result of the file.
+	 */
+	private void discard(final Future<FileResult> future) {
+		if (future.isDone() && !future.isCancelled()) {
+			try {
+				final FileResult result = future.get();
+				if (result.output != null) {
+					result.output.delete();
+				}
+			}
+			catch (final Exception ex) {
+				// ** The file failed, so it has no output.
+			}
+		}
+	}
+
+	/**
+	 * The output and statistics of one file.
+	 */
+	private static class FileResult {
+
+		private final String path;
+
+		/** The temporary file of output, or {@code null} if processing failed. */
+		private final File output;
+
+		private final BillingStatistics statistics;
+
+		FileResult(final String path, final File output, final BillingStatistics statistics) {
+			this.path = path;
+			this.output = output;
+			this.statistics = statistics;
+		}
+	}
+
+	/**
+	 * Task which streams one file into a temporary file of output.
+	 */
+	private class FileTask implements Callable<FileResult> {
+
+		private final String path;
+
+		FileTask(final String path) {
+			this.path = path;
+		}
+
+		public FileResult call() {
+			File output = null;
+			try {
+				output = File.createTempFile("redi2-invoices-", ".txt");
+				final ReportSink sink = new FileReportSink(output.getPath());
+				try {
+					final Processor processor = new Processor(billingService, fileReader, sink, ruleFactory);
+					return new FileResult(path, output, processor.stream(path));
+				}
+				finally {
+					sink.close();
+				}
+			}
+			catch (final Exception ex) {
+				// In lieu of proper logging, e.g. Log4J
+				System.err.println("Error processing file: " + path);
+				ex.printStackTrace();
+				if (output != null) {
+					output.delete();
+				}
+				return new FileResult(path, null, null);
+			}
+		}
+	}
+
+	/**
+	 * Factory of the daemon worker threads, named {@code redi2-file-N}.
+	 */
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, "redi2-file-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
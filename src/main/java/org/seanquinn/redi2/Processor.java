@@ -23,23 +23,31 @@
  */
 package org.seanquinn.redi2;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.MessageFormat;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.BillingStatistics;
 import org.seanquinn.redi2.billing.impl.BillingServiceImpl;
+import org.seanquinn.redi2.billing.rejection.Rejection;
+import org.seanquinn.redi2.billing.rejection.RejectionReason;
+import org.seanquinn.redi2.billing.rejection.RejectionSink;
+import org.seanquinn.redi2.billing.rejection.SamplingRejectionSink;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
 import org.seanquinn.redi2.domain.BillingReport;
 import org.seanquinn.redi2.domain.Engagement;
-import org.seanquinn.redi2.utils.CollectionUtils;
-import org.seanquinn.redi2.utils.CurrencyUtils;
+import org.seanquinn.redi2.io.BinaryEngagementFile;
+import org.seanquinn.redi2.io.BinaryEngagementFileReader;
+import org.seanquinn.redi2.io.DecompressingMinuteFileReader;
+import org.seanquinn.redi2.io.EngagementLengthHandler;
+import org.seanquinn.redi2.io.MinuteFileHandler;
+import org.seanquinn.redi2.io.MinuteFileReader;
+import org.seanquinn.redi2.report.ConsoleReportSink;
+import org.seanquinn.redi2.report.ReportSink;
 import org.seanquinn.redi2.utils.TimeUtils;
 
 /**
@@ -50,8 +58,35 @@ import org.seanquinn.redi2.utils.TimeUtils;
  */
 public class Processor {
 
+	/**
+	 * The number of engagements read and billed at a time when streaming a
+	 * file.
+	 */
+	private static final int STREAM_CHUNK_SIZE = 1024;
+
 	private final BillingService billingService;
 
+	private final MinuteFileReader fileReader;
+
+	/** The reader used for binary files of engagements. */
+	private final BinaryEngagementFileReader binaryFileReader = new BinaryEngagementFileReader();
+
+	private final ReportSink reportSink;
+
+	/**
+	 * The factory whose tiers the statistics of each batch or stream are
+	 * broken down by; a snapshot, which rules published later do not
+	 * replace (see {@link BillingStatistics}).
+	 */
+	private final BillingRuleFactory ruleFactory;
+
+	/**
+	 * The sink to which lines of a file that cannot be parsed, and
+	 * engagements of a file with a negative length, are rejected; that of the
+	 * billing service, if it has one.
+	 */
+	private final RejectionSink rejectionSink;
+
 	/**
 	 * Constructor.
 	 *
@@ -59,47 +94,103 @@ public class Processor {
 	 * a dependency injection container assign the service from a container.
 	 */
 	public Processor() {
-		this.billingService = new BillingServiceImpl();
+		this(new BillingServiceImpl(), new DecompressingMinuteFileReader());
+	}
+
+	/**
+	 * Instantiates a new processor which bills through the passed
+	 * {@link BillingService} and reads files through the passed
+	 * {@link MinuteFileReader}.
+	 *
+	 * @param billingService the billing service.
+	 * @param fileReader the reader used for files of minutes.
+	 */
+	public Processor(final BillingService billingService, final MinuteFileReader fileReader) {
+		this(billingService, fileReader, new ConsoleReportSink());
+	}
+
+	/**
+	 * Instantiates a new processor which bills through the passed
+	 * {@link BillingService}, reads files through the passed
+	 * {@link MinuteFileReader}, and writes invoices to the passed
+	 * {@link ReportSink}. Statistics are broken down by the tiers of the
+	 * rules the service bills by when this processor is created.
+	 *
+	 * @param billingService the billing service.
+	 * @param fileReader the reader used for files of minutes.
+	 * @param reportSink the sink to which invoices are written.
+	 */
+	public Processor(final BillingService billingService, final MinuteFileReader fileReader,
+			final ReportSink reportSink) {
+		this(billingService, fileReader, reportSink, billingService instanceof BillingServiceImpl
+				? ((BillingServiceImpl) billingService).getRuleFactory() : new BillingRuleFactory());
+	}
+
+	/**
+	 * Instantiates a new processor which bills through the passed
+	 * {@link BillingService}, reads files through the passed
+	 * {@link MinuteFileReader}, writes invoices to the passed
+	 * {@link ReportSink}, and breaks statistics down by the tiers of the
+	 * passed {@link BillingRuleFactory}.
+	 *
+	 * @param billingService the billing service.
+	 * @param fileReader the reader used for files of minutes.
+	 * @param reportSink the sink to which invoices are written.
+	 * @param ruleFactory the billing rule factory.
+	 */
+	public Processor(final BillingService billingService, final MinuteFileReader fileReader,
+			final ReportSink reportSink, final BillingRuleFactory ruleFactory) {
+		this.billingService = billingService;
+		this.fileReader = fileReader;
+		this.reportSink = reportSink;
+		this.ruleFactory = ruleFactory;
+		this.rejectionSink = billingService instanceof BillingServiceImpl
+				? ((BillingServiceImpl) billingService).getRejectionSink() : new SamplingRejectionSink();
 	}
 
 	/**
-	 * Prints the invoice for each of the billing reports to the screen and,
-	 * after all reports are printed, the total amount billed as well as the
+	 * Writes the invoice for each of the billing reports to the sink and,
+	 * after all reports are written, the total amount billed as well as the
 	 * average charge per customer.
 	 *
 	 * @param reports the collection of billing reports.
+	 * @return the statistics of the billing reports.
+	 * @throws IOException if the invoices cannot be written.
 	 */
-	private void display(final List<BillingReport> reports) {
-		BigDecimal total = new BigDecimal(0.0);
-		for (final BillingReport report : reports) {
-			total = total.add(report.getBilled());
+	private BillingStatistics display(final List<BillingReport> reports) throws IOException {
+		final RenderEvent event = new RenderEvent();
+		event.begin();
 
-			print("INVOICE");
-			print("==========================");
-			print("Report ID:     {0}", report.getUuidAsString());
-			print("Billed For:    {0} hrs.", report.getEngagement().getHours());
-			print("Amount Billed: {0}", report.getBilledAsCurrency());
-			print("\n");
+		final BillingStatistics statistics = new BillingStatistics(ruleFactory);
+		for (final BillingReport report : reports) {
+			statistics.accept(report);
+			displayInvoice(report);
 		}
+		displayTotals(statistics);
 
-		// ** Display the total billed amount
-		print("\nTOTAL BILLED: {0}", CurrencyUtils.asCurrency(total.doubleValue()));
+		commit(event, reports.size(), true);
+		return statistics;
+	}
 
-		// ** Display the average charge per customer
-		final BigDecimal divisor = new BigDecimal(reports.size());
-		final BigDecimal average = total.divide(divisor, 2, RoundingMode.HALF_UP);
-		print("AVG. CHARGE PER CUSTOMER: {0}", CurrencyUtils.asCurrency(average.doubleValue()));
+	/**
+	 * Writes the invoice for a single billing report to the sink.
+	 *
+	 * @param report the billing report.
+	 * @throws IOException if the invoice cannot be written.
+	 */
+	private void displayInvoice(final BillingReport report) throws IOException {
+		reportSink.writeInvoice(report);
 	}
 
 	/**
-	 * Convenience method for printing a formatted message with a variable
-	 * number of arguments to the {@code System.out} stream.
+	 * Writes the total amount billed as well as the average charge per
+	 * customer to the sink.
 	 *
-	 * @param sz the string.
-	 * @param args the arguments.
+	 * @param statistics the statistics of the reports that were billed.
+	 * @throws IOException if the totals cannot be written.
 	 */
-	private void print(final String sz, final Object ... args) {
-		System.out.println(MessageFormat.format(sz, args));
+	private void displayTotals(final BillingStatistics statistics) throws IOException {
+		reportSink.writeTotals(statistics.getSum(), statistics.getMean());
 	}
 
 	/**
@@ -107,73 +198,406 @@ public class Processor {
 	 * the output for each report entry.
 	 *
 	 * @param minutes the minutes.
+	 * @return the statistics of the billed engagements.
+	 * @throws IOException if the invoices cannot be written.
 	 */
-	public void process(final double ... minutes) {
+	public BillingStatistics process(final double ... minutes) throws IOException {
 		List<Engagement> engagements = new ArrayList<Engagement>();
 		for (double value : minutes) {
 			long ms = (long) value * TimeUtils.ONE_MINUTE_MS;
 			engagements.add(new Engagement(ms));
 		}
+		return process(engagements);
+	}
 
+	/**
+	 * Processes billing charges for each of the engagements and displays the
+	 * output for each report entry.
+	 *
+	 * @param engagements the engagements.
+	 * @return the statistics of the billed engagements.
+	 * @throws IOException if the invoices cannot be written.
+	 */
+	private BillingStatistics process(final List<Engagement> engagements) throws IOException {
+		BillingStatistics statistics = new BillingStatistics(ruleFactory);
 		final List<BillingReport> reports = billingService.process(engagements);
 		if (reports != null && reports.size() > 0) {
-			display(reports);
+			statistics = display(reports);
 		}
+		reportSink.flush();
+		return statistics;
 	}
 
 	/**
+	 * Processes billing charges for each of the minutes in the file at the
+	 * passed path, or for each of the engagements if it is a
+	 * {@link BinaryEngagementFile binary file}. The whole file is read and
+	 * billed before any output is displayed; see {@link #stream(String)} for
+	 * large files. An engagement with a negative length is rejected at its
+	 * position in the file, rather than billed.
 	 *
-	 * @param path
-	 * @throws IOException
+	 * @param path the path to the file.
+	 * @return the statistics of the billed engagements.
+	 * @throws IOException if the file cannot be read.
 	 */
-	public void process(final String path) throws IOException {
-		final List<Double> values = readFile(path);
-		final double[] minutes = CollectionUtils.toPrimitiveArray(values);
-		process(minutes);
+	public BillingStatistics process(final String path) throws IOException {
+		if (BinaryEngagementFile.isBinary(path)) {
+			final long[] lengthsMs = readBinaryFile(path);
+			final List<Engagement> engagements = new ArrayList<Engagement>(lengthsMs.length);
+			for (int i = 0; i < lengthsMs.length; i++) {
+				if (lengthsMs[i] < 0) {
+					rejectNegativeLength(path, i, lengthsMs[i]);
+				}
+				else {
+					engagements.add(new Engagement(lengthsMs[i]));
+				}
+			}
+			return process(engagements);
+		}
+
+		final CollectingHandler handler = collect(path);
+		final List<Engagement> engagements = new ArrayList<Engagement>(handler.size);
+		int skipped = 0;
+		long line = 0;
+		for (int i = 0; i < handler.size; i++) {
+			// ** Skip past the lines which could not be parsed, to find the line of this one.
+			while (skipped < handler.unparseable && handler.unparseableLines[skipped] == line) {
+				skipped++;
+				line++;
+			}
+			final long ms = (long) handler.minutes[i] * TimeUtils.ONE_MINUTE_MS;
+			if (ms < 0) {
+				rejectNegativeLength(path, line, ms);
+			}
+			else {
+				engagements.add(new Engagement(ms));
+			}
+			line++;
+		}
+		return process(engagements);
 	}
 
 	/**
-	 * Reads a file, line-by-line as doubles.
-	 * @param path
-	 * @return
-	 * @throws IOException
+	 * Processes billing charges for each of the minutes in the file at the
+	 * passed path, reading, billing and displaying the reports in chunks of
+	 * {@link #STREAM_CHUNK_SIZE} engagements so that memory use remains
+	 * constant regardless of the size of the file; or the engagements, if it
+	 * is a {@link BinaryEngagementFile binary file}. The totals are displayed
+	 * once the whole file has been read. An engagement with a negative length
+	 * is rejected at its position in the file, rather than billed.
+	 *
+	 * @param path the path to the file.
+	 * @return the statistics of the billed engagements.
+	 * @throws IOException if the file cannot be read, or the invoices
+	 * 		cannot be written.
 	 */
-	private List<Double> readFile(final String path) throws FileNotFoundException, IOException {
-		final List<Double> lines = new ArrayList<Double>();
+	public BillingStatistics stream(final String path) throws IOException {
+		final FileReadEvent event = new FileReadEvent();
+		event.begin();
 
-		FileInputStream fs = null;
-		BufferedReader reader = null;
+		final StreamingHandler handler = new StreamingHandler(path);
+		final boolean binary = BinaryEngagementFile.isBinary(path);
 		try {
-			fs = new FileInputStream(path);
-			reader = new BufferedReader(new InputStreamReader(fs));
+			if (binary) {
+				binaryFileReader.read(path, handler);
+			}
+			else {
+				fileReader.read(path, handler);
+			}
+			handler.flush();
+			commit(event, path, binary, true, handler.statistics.getCount());
+		}
+		catch (final UncheckedIOException ex) {
+			// ** The handler cannot throw an IOException of its own when writing fails.
+			throw ex.getCause();
+		}
 
-			String line;
-			while ((line = reader.readLine()) != null) {
-				try {
-					lines.add(new Double(line));
-				}
-				catch (final Exception ex) {
-					System.err.println("Unable to parse the following to a number of minutes: " + line);
-				}
+		if (handler.statistics.getCount() > 0) {
+			final RenderEvent totals = new RenderEvent();
+			totals.begin();
+			displayTotals(handler.statistics);
+			commit(totals, 0, true);
+		}
+		reportSink.flush();
+		return handler.statistics;
+	}
+
+	/**
+	 * Reads a file, line-by-line as doubles.
+	 * <p>
+	 * Package-private (rather than private) so that it may be benchmarked.
+	 * </p>
+	 * @param path the path to the file.
+	 * @return the minutes on each line that could be parsed.
+	 * @throws IOException if the file cannot be read.
+	 */
+	double[] readFile(final String path) throws FileNotFoundException, IOException {
+		final CollectingHandler handler = collect(path);
+		return Arrays.copyOf(handler.minutes, handler.size);
+	}
+
+	/**
+	 * Reads a file, line-by-line as doubles, into a {@link CollectingHandler}.
+	 *
+	 * @param path the path to the file.
+	 * @return the handler, holding the minutes on each line that could be
+	 * 		parsed.
+	 * @throws IOException if the file cannot be read.
+	 */
+	private CollectingHandler collect(final String path) throws IOException {
+		final FileReadEvent event = new FileReadEvent();
+		event.begin();
+
+		final CollectingHandler handler = new CollectingHandler(path);
+		fileReader.read(path, handler);
+
+		commit(event, path, false, false, handler.size);
+		return handler;
+	}
+
+	/**
+	 * Reads a {@link BinaryEngagementFile binary file} of engagements.
+	 * <p>
+	 * Package-private (rather than private) so that it may be benchmarked.
+	 * </p>
+	 * @param path the path to the file.
+	 * @return the length of each engagement, in milliseconds.
+	 * @throws IOException if the file cannot be read.
+	 */
+	long[] readBinaryFile(final String path) throws IOException {
+		final FileReadEvent event = new FileReadEvent();
+		event.begin();
+
+		final LengthCollectingHandler handler = new LengthCollectingHandler();
+		binaryFileReader.read(path, handler);
+		final long[] lengthsMs = Arrays.copyOf(handler.lengthsMs, handler.size);
+
+		commit(event, path, true, false, lengthsMs.length);
+		return lengthsMs;
+	}
+
+	/**
+	 * Ends and, if it is being recorded, commits a {@link FileReadEvent}.
+	 *
+	 * @param event the event, which has begun.
+	 * @param path the path to the file.
+	 * @param binary whether the file is a binary file of engagements.
+	 * @param streamed whether the file was billed and rendered as it was read.
+	 * @param engagements the number of engagements read.
+	 */
+	private static void commit(final FileReadEvent event, final String path, final boolean binary,
+			final boolean streamed, final long engagements) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = path;
+			event.binary = binary;
+			event.streamed = streamed;
+			event.engagements = engagements;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Ends and, if it is being recorded, commits a {@link RenderEvent}.
+	 *
+	 * @param event the event, which has begun.
+	 * @param invoices the number of invoices rendered.
+	 * @param totals whether the totals were rendered as well.
+	 */
+	private static void commit(final RenderEvent event, final int invoices, final boolean totals) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.invoices = invoices;
+			event.totals = totals;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Rejects an engagement of a file which has a negative length, at its
+	 * position in the file; the billing service would only reject it at its
+	 * position in the batch. It is counted as an error by the metrics of the
+	 * billing service, if it has any.
+	 *
+	 * @param path the path to the file.
+	 * @param position the zero-based position of the engagement in the file.
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 */
+	private void rejectNegativeLength(final String path, final long position, final long lengthMs) {
+		if (billingService instanceof BillingServiceImpl) {
+			((BillingServiceImpl) billingService).getMetrics().onError();
+		}
+		rejectionSink.reject(new Rejection(RejectionReason.NEGATIVE_LENGTH, path, position,
+				new Engagement(lengthMs)));
+	}
+
+	/**
+	 * Returns the {@link RejectionSink} to which lines of a file that cannot
+	 * be parsed, and engagements with a negative length, are rejected.
+	 *
+	 * @return the rejection sink.
+	 */
+	public RejectionSink getRejectionSink() {
+		return rejectionSink;
+	}
+
+	/**
+	 * Base {@link MinuteFileHandler} which rejects each line of a file that
+	 * could not be parsed to the {@link #rejectionSink}, along with its
+	 * position in the file.
+	 */
+	private abstract class ReportingHandler implements MinuteFileHandler {
+
+		protected final String path;
+
+		/**
+		 * The zero-based index of the next line of the file; or of the next
+		 * record, if it is a binary file.
+		 */
+		protected long line;
+
+		ReportingHandler(final String path) {
+			this.path = path;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onUnparseable(final String text) {
+			rejectionSink.reject(new Rejection(RejectionReason.UNPARSEABLE, path, line++, text));
+		}
+	}
+
+	/**
+	 * Handler which collects the minutes of a file into a primitive array.
+	 */
+	private class CollectingHandler extends ReportingHandler {
+
+		private double[] minutes = new double[STREAM_CHUNK_SIZE];
+
+		private int size;
+
+		/**
+		 * The index of each line which could not be parsed, in order; so that
+		 * the line of each of the minutes may be found without recording it.
+		 */
+		private long[] unparseableLines = new long[16];
+
+		private int unparseable;
+
+		CollectingHandler(final String path) {
+			super(path);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void onUnparseable(final String text) {
+			if (unparseable == unparseableLines.length) {
+				unparseableLines = Arrays.copyOf(unparseableLines, unparseable * 2);
 			}
+			unparseableLines[unparseable++] = line;
+			super.onUnparseable(text);
 		}
-		catch (final FileNotFoundException ex) {
-			ex.printStackTrace();
-			throw ex;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onMinutes(final double value) {
+			line++;
+			if (size == minutes.length) {
+				minutes = Arrays.copyOf(minutes, size * 2);
+			}
+			minutes[size++] = value;
 		}
-		finally {
-			// ** If the reader is non-null, close it.
-			if (reader != null) {
-				reader.close();
-				reader = null;
+	}
+
+	/**
+	 * Handler which collects the engagements of a binary file into a
+	 * primitive array.
+	 */
+	private static class LengthCollectingHandler implements EngagementLengthHandler {
+
+		private long[] lengthsMs = new long[STREAM_CHUNK_SIZE];
+
+		private int size;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onLengths(final long[] chunk, final int count) {
+			if (size + count > lengthsMs.length) {
+				lengthsMs = Arrays.copyOf(lengthsMs, Math.max(size + count, size * 2));
 			}
+			System.arraycopy(chunk, 0, lengthsMs, size, count);
+			size += count;
+		}
+	}
 
-			// ** If the file input stream is non-null, close it.
-			if (fs != null) {
-				fs.close();
-				fs = null;
+	/**
+	 * Handler which bills and displays the minutes (or engagements) of a file
+	 * a chunk at a time, keeping running statistics of what has been billed.
+	 */
+	private class StreamingHandler extends ReportingHandler implements EngagementLengthHandler {
+
+		private final List<Engagement> chunk = new ArrayList<Engagement>(STREAM_CHUNK_SIZE);
+
+		private final BillingStatistics statistics = new BillingStatistics(ruleFactory);
+
+		StreamingHandler(final String path) {
+			super(path);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onMinutes(final double value) {
+			onLength((long) value * TimeUtils.ONE_MINUTE_MS);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onLengths(final long[] lengthsMs, final int count) {
+			for (int i = 0; i < count; i++) {
+				onLength(lengthsMs[i]);
+			}
+		}
+
+		private void onLength(final long lengthMs) {
+			if (lengthMs < 0) {
+				rejectNegativeLength(path, line++, lengthMs);
+				return;
+			}
+			line++;
+			chunk.add(new Engagement(lengthMs));
+			if (chunk.size() == STREAM_CHUNK_SIZE) {
+				flush();
+			}
+		}
+
+		/**
+		 * Bills and displays the engagements in the current chunk.
+		 *
+		 * @throws UncheckedIOException if the invoices cannot be written.
+		 */
+		private void flush() {
+			final List<BillingReport> reports = billingService.process(chunk);
+
+			final RenderEvent event = new RenderEvent();
+			event.begin();
+			for (final BillingReport report : reports) {
+				statistics.accept(report);
+				try {
+					displayInvoice(report);
+				}
+				catch (final IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
 			}
+			commit(event, reports.size(), false);
+			chunk.clear();
 		}
-		return lines;
 	}
 }
@@ -23,8 +23,12 @@
  */
 package org.seanquinn.redi2;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.JMException;
 
 import org.apache.commons.cli.BasicParser;
 import org.apache.commons.cli.CommandLine;
@@ -33,6 +37,31 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.seanquinn.redi2.billing.impl.BillingServiceImpl;
+import org.seanquinn.redi2.billing.impl.ParallelBillingServiceImpl;
+import org.seanquinn.redi2.billing.metrics.DefaultBillingMetrics;
+import org.seanquinn.redi2.billing.rejection.Rejection;
+import org.seanquinn.redi2.billing.rejection.RejectionReason;
+import org.seanquinn.redi2.billing.rejection.SamplingRejectionSink;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.billing.rule.BillingTierLoader;
+import org.seanquinn.redi2.billing.rule.CostTable;
+import org.seanquinn.redi2.billing.rule.RuleSetFileWatcher;
+import org.seanquinn.redi2.billing.rule.RuleSetRegistry;
+import org.seanquinn.redi2.domain.id.FastRandomReportIdGenerator;
+import org.seanquinn.redi2.domain.id.RandomReportIdGenerator;
+import org.seanquinn.redi2.domain.id.ReportIdGenerator;
+import org.seanquinn.redi2.domain.id.SequentialReportIdGenerator;
+import org.seanquinn.redi2.io.BufferedMinuteFileReader;
+import org.seanquinn.redi2.io.DecompressingMinuteFileReader;
+import org.seanquinn.redi2.io.InputFiles;
+import org.seanquinn.redi2.io.MappedMinuteFileReader;
+import org.seanquinn.redi2.io.MinuteFileConverter;
+import org.seanquinn.redi2.io.MinuteFileReader;
+import org.seanquinn.redi2.report.ConsoleReportSink;
+import org.seanquinn.redi2.report.FileReportSink;
+import org.seanquinn.redi2.report.ReportSink;
 import org.seanquinn.redi2.utils.CollectionUtils;
 
 /**
@@ -47,28 +76,239 @@ public class ProcessorApplication
     {
     	final Options options = getOptions();
     	final CommandLineParser parser = new BasicParser();
+    	ReportSink reportSink = null;
+    	BillingServiceImpl billingService = null;
     	try {
     		CommandLine line = parser.parse(options, args);
 
     		if (line.hasOption("file")) {
-    			final Processor processor = new Processor();
-    			processor.process(line.getOptionValue("file"));
+    			// ** Compressed files are detected and decompressed on the fly.
+    			final MinuteFileReader fileReader = new DecompressingMinuteFileReader(line.hasOption("mmap")
+    					? new MappedMinuteFileReader()
+    					: new BufferedMinuteFileReader());
+
+    			final String[] files = line.getOptionValues("file");
+    			final List<String> paths = InputFiles.resolve(files);
+
+    			if (line.hasOption("convert")) {
+    				if (paths.size() != 1) {
+    					throw new IllegalArgumentException("Only a single file may be converted at a time.");
+    				}
+    				final long count = new MinuteFileConverter(fileReader)
+    						.convert(paths.get(0), line.getOptionValue("convert"));
+    				System.err.println("Converted " + count + " engagements to " + line.getOptionValue("convert"));
+    				return;
+    			}
+
+    			reportSink = getReportSink(line);
+    			billingService = getBillingService(line);
+    			if (files.length > 1 || paths.size() != 1 || !paths.get(0).equals(files[0])) {
+    				// ** Several files, a directory or a glob.
+    				final int jobs = getPositiveInt(line, "jobs", Runtime.getRuntime().availableProcessors());
+    				new MultiFileProcessor(billingService, fileReader, billingService.getRuleFactory(), jobs)
+    						.process(paths, reportSink);
+    			}
+    			else {
+    				final Processor processor = new Processor(billingService, fileReader, reportSink);
+    				if (line.hasOption("stream")) {
+    					processor.stream(paths.get(0));
+    				}
+    				else {
+    					processor.process(paths.get(0));
+    				}
+    			}
     		}
     		else if (line.hasOption("help")){
     			printHelp(options);
     		}
     		else {
-    			final Processor processor = new Processor();
+    			reportSink = getReportSink(line);
+    			billingService = getBillingService(line);
+    			final Processor processor = new Processor(billingService, new BufferedMinuteFileReader(), reportSink);
     			final double[] minutes = argsToMinutes(line.getArgs());
    				processor.process(minutes);
     		}
     	}
+    	catch (final ParseException ex) {
+    		System.err.println(ex.getMessage());
+    		printHelp(options);
+    	}
     	catch (Exception ex) {
     		ex.printStackTrace();
 
     		// ** If we encountered an exception displa
     		printHelp(options);
     	}
+    	finally {
+    		closeQuietly(reportSink);
+    		if (billingService != null) {
+    			printRejections(billingService);
+    			if (billingService.getMetrics() instanceof DefaultBillingMetrics) {
+    				System.err.println("Billing metrics: " + billingService.getMetrics());
+    			}
+    			if (billingService instanceof ParallelBillingServiceImpl) {
+    				((ParallelBillingServiceImpl) billingService).getPool().shutdown();
+    			}
+    		}
+    	}
+    }
+
+    /**
+     * Prints the number of inputs rejected for each reason, and a sample of
+     * each, to the standard error stream; if any were rejected.
+     *
+     * @param billingService the billing service.
+     */
+    private static void printRejections(final BillingServiceImpl billingService) {
+    	if (!(billingService.getRejectionSink() instanceof SamplingRejectionSink)) {
+    		return;
+    	}
+    	final SamplingRejectionSink rejections = (SamplingRejectionSink) billingService.getRejectionSink();
+    	if (rejections.getCount() > 0) {
+    		System.err.println("Rejections: " + rejections);
+    		for (final RejectionReason reason : RejectionReason.values()) {
+    			for (final Rejection rejection : rejections.getSamples(reason)) {
+    				System.err.println("  " + rejection);
+    			}
+    		}
+    	}
+    }
+
+    /**
+     * Returns the sink to which invoices are written; the file passed with
+     * the {@code output} option, or otherwise the standard output stream.
+     *
+     * @param line the command line.
+     * @return the report sink.
+     * @throws IOException if the output file cannot be created.
+     */
+    private static ReportSink getReportSink(final CommandLine line) throws IOException {
+    	if (line.hasOption("output")) {
+    		return new FileReportSink(line.getOptionValue("output"));
+    	}
+    	return new ConsoleReportSink();
+    }
+
+    /**
+     * Closes the passed sink, if any, reporting rather than throwing any
+     * error.
+     *
+     * @param reportSink the report sink.
+     */
+    private static void closeQuietly(final ReportSink reportSink) {
+    	if (reportSink != null) {
+    		try {
+    			reportSink.close();
+    		}
+    		catch (final IOException ex) {
+    			ex.printStackTrace();
+    		}
+    	}
+    }
+
+    /**
+     * Returns the billing service to process engagements with; if the
+     * {@code threads} option was passed, batches are billed in parallel on
+     * that many threads. Engagements are billed by the tiers loaded from the
+     * file passed with the {@code tiers} option, if any, or otherwise by the
+     * default tiers; if the {@code watch} option was passed as well, the file
+     * is reloaded whenever it changes. The costs of engagements below the
+     * highest tier threshold are looked up from a table built in the
+     * background. If the {@code metrics} option was passed, the service
+     * records metrics, which are published over JMX.
+     *
+     * @param line the command line.
+     * @return the billing service.
+     * @throws IOException if the tiers cannot be loaded.
+     * @throws JMException if the metrics cannot be published.
+     * @throws ParseException if the number of threads is not a positive
+     * 		whole number.
+     */
+    private static BillingServiceImpl getBillingService(final CommandLine line)
+    		throws IOException, JMException, ParseException {
+    	final ReportIdGenerator reportIdGenerator = getReportIdGenerator(line);
+    	final BillingRuleFactory ruleFactory = line.hasOption("tiers")
+    			? BillingTierLoader.load(line.getOptionValue("tiers"))
+    			: new BillingRuleFactory();
+
+    	// ** Costs are computed by the rules until the table is ready.
+    	final CostTable costTable = new CostTable(ruleFactory);
+    	costTable.buildInBackground();
+    	final RuleSetRegistry ruleSets = new RuleSetRegistry(costTable);
+
+    	if (line.hasOption("watch")) {
+    		if (!line.hasOption("tiers")) {
+    			throw new IllegalArgumentException("Only a file of tiers passed with --tiers may be watched.");
+    		}
+    		// ** The watcher polls on a daemon thread, which ends with the application.
+    		new RuleSetFileWatcher(ruleSets, line.getOptionValue("tiers"))
+    				.start(RuleSetFileWatcher.DEFAULT_INTERVAL_MS);
+    	}
+
+    	final BillingServiceImpl billingService;
+    	if (line.hasOption("threads")) {
+    		final int threads = getPositiveInt(line, "threads", 1);
+    		billingService = new ParallelBillingServiceImpl(ruleSets, reportIdGenerator,
+    				new ForkJoinPool(threads), ParallelBillingServiceImpl.DEFAULT_THRESHOLD);
+    	}
+    	else {
+    		billingService = new BillingServiceImpl(ruleSets, reportIdGenerator);
+    	}
+
+    	if (line.hasOption("metrics")) {
+    		final DefaultBillingMetrics metrics = new DefaultBillingMetrics();
+    		metrics.register("process");
+    		billingService.setMetrics(metrics);
+    	}
+    	return billingService;
+    }
+
+    /**
+     * Returns the value of the passed option as a positive whole number.
+     *
+     * @param line the command line.
+     * @param option the name of the option.
+     * @param defaultValue the value if the option was not passed.
+     * @return the value.
+     * @throws ParseException if the value is not a positive whole number.
+     */
+    private static int getPositiveInt(final CommandLine line, final String option, final int defaultValue)
+    		throws ParseException {
+    	if (!line.hasOption(option)) {
+    		return defaultValue;
+    	}
+    	final String value = line.getOptionValue(option);
+    	try {
+    		final int n = Integer.parseInt(value);
+    		if (n > 0) {
+    			return n;
+    		}
+    	}
+    	catch (final NumberFormatException ex) {
+    		// ** Reported below, as is a value which is not positive.
+    	}
+    	throw new ParseException("The " + option + " option must be a positive whole number: " + value);
+    }
+
+    /**
+     * Returns the generator for report IDs named by the {@code ids} option;
+     * by default, cryptographically strong random IDs.
+     *
+     * @param line the command line.
+     * @return the report ID generator.
+     */
+    private static ReportIdGenerator getReportIdGenerator(final CommandLine line) {
+    	final String ids = line.getOptionValue("ids", "random");
+    	if ("fast".equals(ids)) {
+    		return new FastRandomReportIdGenerator();
+    	}
+    	else if ("sequential".equals(ids)) {
+    		return new SequentialReportIdGenerator();
+    	}
+    	else if ("random".equals(ids)) {
+    		return new RandomReportIdGenerator();
+    	}
+    	throw new IllegalArgumentException("Unknown report ID generator: " + ids);
     }
 
     /**
@@ -104,6 +344,16 @@ public class ProcessorApplication
     	Options options = new Options();
 
     	options.addOption(getFileOption());
+    	options.addOption(getStreamOption());
+    	options.addOption(getMemoryMappedOption());
+    	options.addOption(getThreadsOption());
+    	options.addOption(getJobsOption());
+    	options.addOption(getIdsOption());
+    	options.addOption(getTiersOption());
+    	options.addOption(getWatchOption());
+    	options.addOption(getMetricsOption());
+    	options.addOption(getOutputOption());
+    	options.addOption(getConvertOption());
     	options.addOption(getHelpOption());
     	return options;
     }
@@ -116,12 +366,144 @@ public class ProcessorApplication
     private static Option getFileOption() {
     	return OptionBuilder
     			.withArgName("file")
-    			.hasArg()
+    			.hasArgs()
     			.withLongOpt("file")
-    			.withDescription("processes billing reports based on the passed file")
+    			.withDescription("processes billing reports based on the passed files, directories or globs")
     			.create("f");
     }
 
+    /**
+     * Returns the {@code stream} option.
+     *
+     * @return the stream option.
+     */
+    private static Option getStreamOption() {
+    	return OptionBuilder
+    			.withLongOpt("stream")
+    			.withDescription("streams the passed file, billing and printing reports as they are read")
+    			.create("s");
+    }
+
+    /**
+     * Returns the {@code mmap} option.
+     *
+     * @return the memory-mapped option.
+     */
+    private static Option getMemoryMappedOption() {
+    	return OptionBuilder
+    			.withLongOpt("mmap")
+    			.withDescription("reads the passed file through a memory map rather than line-by-line")
+    			.create("m");
+    }
+
+    /**
+     * Returns the {@code threads} option.
+     *
+     * @return the threads option.
+     */
+    private static Option getThreadsOption() {
+    	return OptionBuilder
+    			.withArgName("threads")
+    			.hasArg()
+    			.withLongOpt("threads")
+    			.withDescription("bills engagements in parallel on the passed number of threads")
+    			.create("t");
+    }
+
+    /**
+     * Returns the {@code jobs} option.
+     *
+     * @return the jobs option.
+     */
+    private static Option getJobsOption() {
+    	return OptionBuilder
+    			.withArgName("jobs")
+    			.hasArg()
+    			.withLongOpt("jobs")
+    			.withDescription("processes the passed number of files at a time, when several are passed (by default, one per processor)")
+    			.create("j");
+    }
+
+    /**
+     * Returns the {@code ids} option.
+     *
+     * @return the ids option.
+     */
+    private static Option getIdsOption() {
+    	return OptionBuilder
+    			.withArgName("generator")
+    			.hasArg()
+    			.withLongOpt("ids")
+    			.withDescription("generates report IDs as random (the default), fast (non-cryptographic random) or sequential")
+    			.create("i");
+    }
+
+    /**
+     * Returns the {@code tiers} option.
+     *
+     * @return the tiers option.
+     */
+    private static Option getTiersOption() {
+    	return OptionBuilder
+    			.withArgName("file")
+    			.hasArg()
+    			.withLongOpt("tiers")
+    			.withDescription("bills engagements by the tiers in the passed properties file, rather than the default tiers")
+    			.create("r");
+    }
+
+    /**
+     * Returns the {@code watch} option.
+     *
+     * @return the watch option.
+     */
+    private static Option getWatchOption() {
+    	return OptionBuilder
+    			.withLongOpt("watch")
+    			.withDescription("reloads the file passed with --tiers whenever it changes while billing")
+    			.create("w");
+    }
+
+    /**
+     * Returns the {@code metrics} option.
+     *
+     * @return the metrics option.
+     */
+    private static Option getMetricsOption() {
+    	return OptionBuilder
+    			.withLongOpt("metrics")
+    			.withDescription("records billing metrics, published over JMX and summarised once billing is done")
+    			.create("x");
+    }
+
+    /**
+     * Returns the {@code output} option.
+     *
+     * @return the output option.
+     */
+    private static Option getOutputOption() {
+    	return OptionBuilder
+    			.withArgName("file")
+    			.hasArg()
+    			.withLongOpt("output")
+    			.withDescription("writes invoices to the passed file rather than the screen")
+    			.create("o");
+    }
+
+    /**
+     * Returns the {@code convert} option.
+     *
+     * @return the convert option.
+     */
+    private static Option getConvertOption() {
+    	return OptionBuilder
+    			.withArgName("file")
+    			.hasArg()
+    			.withLongOpt("convert")
+    			.withDescription("converts the passed file of minutes to a binary file of engagements, rather than billing it")
+    			.create("c");
+    }
+
     /**
      * Returns the {@code help} option.
      *
@@ -0,0 +1,55 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing;
+
+/**
+ * Contract for billing engagements in bulk, where only the amounts are of
+ * interest. Engagements are passed as an array of lengths and their costs
+ * are returned in an array of cents, so that no {@code Engagement} or
+ * {@code BillingReport} need be created for each one.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public interface BatchBillingService {
+
+	/**
+	 * Bills an engagement of each of the passed lengths, storing the cost of
+	 * each, in whole cents, at the same index of {@code outCents}. Each cost
+	 * is the same as the engagement would be quoted by a
+	 * {@link BillingService}.
+	 * <p>
+	 * The whole batch is validated before any engagement is billed; if any
+	 * length is negative, nothing is stored.
+	 * </p>
+	 *
+	 * @param lengthsMs the lengths of the engagements, in milliseconds.
+	 * @param outCents the array into which the costs are stored; it must be
+	 * 		at least as long as {@code lengthsMs}.
+	 * @return the total cost of the batch, in cents.
+	 * @throws IllegalArgumentException if a length is negative, or
+	 * 		{@code outCents} is shorter than {@code lengthsMs}.
+	 */
+	long billBatch(long[] lengthsMs, long[] outCents);
+}
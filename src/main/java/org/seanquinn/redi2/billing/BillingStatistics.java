@@ -0,0 +1,244 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.utils.CurrencyUtils;
+
+/**
+ * Running statistics of the amounts billed: their count, sum, minimum,
+ * maximum and mean, overall and for each tier of the
+ * {@link BillingRuleFactory}.
+ * <p>
+ * Each amount is accumulated as a {@code long} number of cents, so that
+ * reports need not be retained (nor re-summed as {@code BigDecimal}s) for
+ * totals to be displayed once a batch or stream has been billed.
+ * </p>
+ * <p>
+ * Amounts are broken down by the tiers of the factory the statistics were
+ * created with, which is a fixed snapshot: if new rules are published while
+ * billing (e.g. when a file of tiers is watched), each amount is still
+ * counted in the tier that snapshot gives its engagement, although the
+ * amount itself is the one the new rules billed.
+ * </p>
+ * <p>
+ * Statistics are not thread-safe; rather, each thread should accumulate its
+ * own, and {@link #combine(BillingStatistics) combine} them when it is done.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class BillingStatistics {
+
+	private final BillingRuleFactory ruleFactory;
+
+	private long count;
+	private long sumInCents;
+	private long minInCents = Long.MAX_VALUE;
+	private long maxInCents = Long.MIN_VALUE;
+
+	private final long[] tierCounts;
+	private final long[] tierSumsInCents;
+
+	/**
+	 * Instantiates new, empty statistics, with a tier for each of the tiers
+	 * of the passed {@link BillingRuleFactory}.
+	 *
+	 * @param ruleFactory the billing rule factory.
+	 */
+	public BillingStatistics(final BillingRuleFactory ruleFactory) {
+		this.ruleFactory = ruleFactory;
+		this.tierCounts = new long[ruleFactory.getTierCount()];
+		this.tierSumsInCents = new long[ruleFactory.getTierCount()];
+	}
+
+	/**
+	 * Accumulates the amount billed by a {@link BillingReport}.
+	 *
+	 * @param report the billing report.
+	 */
+	public void accept(final BillingReport report) {
+		accept(report.getEngagement().getLengthMs(), CurrencyUtils.toCents(report.getBilled()));
+	}
+
+	/**
+	 * Accumulates the amount billed for an engagement of the passed length.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @param cents the amount billed, in cents.
+	 * @throws ArithmeticException if the sum no longer fits in a {@code long}
+	 * 		number of cents.
+	 */
+	public void accept(final long lengthMs, final long cents) {
+		final int tier = ruleFactory.getTier(lengthMs);
+		sumInCents = Math.addExact(sumInCents, cents);
+		tierSumsInCents[tier] = Math.addExact(tierSumsInCents[tier], cents);
+		tierCounts[tier]++;
+		count++;
+		minInCents = Math.min(minInCents, cents);
+		maxInCents = Math.max(maxInCents, cents);
+	}
+
+	/**
+	 * Accumulates the passed statistics into these, e.g. those of another
+	 * thread. The passed statistics are left unchanged.
+	 *
+	 * @param other the other statistics.
+	 * @return these statistics.
+	 * @throws IllegalArgumentException if the statistics have different
+	 * 		numbers of tiers.
+	 * @throws ArithmeticException if a sum no longer fits in a {@code long}.
+	 */
+	public BillingStatistics combine(final BillingStatistics other) {
+		if (other.tierCounts.length != tierCounts.length) {
+			throw new IllegalArgumentException("Unable to combine statistics of " + other.tierCounts.length
+					+ " tiers with statistics of " + tierCounts.length + " tiers.");
+		}
+		sumInCents = Math.addExact(sumInCents, other.sumInCents);
+		count = Math.addExact(count, other.count);
+		minInCents = Math.min(minInCents, other.minInCents);
+		maxInCents = Math.max(maxInCents, other.maxInCents);
+		for (int tier = 0; tier < tierCounts.length; tier++) {
+			tierCounts[tier] = Math.addExact(tierCounts[tier], other.tierCounts[tier]);
+			tierSumsInCents[tier] = Math.addExact(tierSumsInCents[tier], other.tierSumsInCents[tier]);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the number of amounts billed.
+	 *
+	 * @return the count.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the total amount billed, in cents.
+	 *
+	 * @return the sum, in cents.
+	 */
+	public long getSumInCents() {
+		return sumInCents;
+	}
+
+	/**
+	 * Returns the total amount billed.
+	 *
+	 * @return the sum.
+	 */
+	public BigDecimal getSum() {
+		return CurrencyUtils.fromCents(sumInCents);
+	}
+
+	/**
+	 * Returns the smallest amount billed, or {@code null} if nothing has
+	 * been billed.
+	 *
+	 * @return the minimum, or {@code null}.
+	 */
+	public BigDecimal getMin() {
+		return count == 0 ? null : CurrencyUtils.fromCents(minInCents);
+	}
+
+	/**
+	 * Returns the largest amount billed, or {@code null} if nothing has been
+	 * billed.
+	 *
+	 * @return the maximum, or {@code null}.
+	 */
+	public BigDecimal getMax() {
+		return count == 0 ? null : CurrencyUtils.fromCents(maxInCents);
+	}
+
+	/**
+	 * Returns the average amount billed, rounded half up to the cent, or
+	 * {@code null} if nothing has been billed.
+	 *
+	 * @return the mean, or {@code null}.
+	 */
+	public BigDecimal getMean() {
+		return count == 0 ? null : mean(sumInCents, count);
+	}
+
+	/**
+	 * Returns the number of tiers.
+	 *
+	 * @return the number of tiers.
+	 */
+	public int getTierCount() {
+		return tierCounts.length;
+	}
+
+	/**
+	 * Returns the number of amounts billed for engagements of the passed
+	 * tier.
+	 *
+	 * @param tier the tier.
+	 * @return the count.
+	 */
+	public long getCount(final int tier) {
+		return tierCounts[tier];
+	}
+
+	/**
+	 * Returns the total amount billed for engagements of the passed tier.
+	 *
+	 * @param tier the tier.
+	 * @return the sum.
+	 */
+	public BigDecimal getSum(final int tier) {
+		return CurrencyUtils.fromCents(tierSumsInCents[tier]);
+	}
+
+	/**
+	 * Returns the average amount billed for engagements of the passed tier,
+	 * rounded half up to the cent, or {@code null} if none were billed.
+	 *
+	 * @param tier the tier.
+	 * @return the mean, or {@code null}.
+	 */
+	public BigDecimal getMean(final int tier) {
+		return tierCounts[tier] == 0 ? null : mean(tierSumsInCents[tier], tierCounts[tier]);
+	}
+
+	private static BigDecimal mean(final long sumInCents, final long count) {
+		return CurrencyUtils.fromCents(sumInCents).divide(new BigDecimal(count), 2, RoundingMode.HALF_UP);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "BillingStatistics [count=" + count + ", sum=" + getSum() + ", min=" + getMin()
+				+ ", max=" + getMax() + ", mean=" + getMean() + "]";
+	}
+}
@@ -24,11 +24,12 @@
 package org.seanquinn.redi2.billing.discount;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.CurrencyUtils;
+import org.seanquinn.redi2.utils.TimeUtils;
 
 /**
  * An implementation of the {@link DiscountCalculator} where in the digits of
@@ -44,29 +45,50 @@ public class DigitAdditiveDiscountCalculator implements DiscountCalculator {
 	 * {@inheritDoc}
 	 */
 	public BigDecimal calculateDiscount(final Engagement engagement) {
-		double discount = 0.0;
+		return CurrencyUtils.fromCents(calculateDiscountInCents(engagement.getLengthMs()));
+	}
 
-		final double minutes = engagement.getMinutes();
-		final List<Integer> digits = getDigits(minutes);
-		for (final Integer digit : digits) {
-			discount += digit.doubleValue();
-		}
+	/**
+	 * {@inheritDoc}
+	 */
+	public long calculateDiscountInCents(final long lengthMs) {
+		return getDigitSum(TimeUtils.toMinutes(lengthMs)) * CurrencyUtils.CENTS_PER_DOLLAR;
+	}
+
+	/**
+	 * Returns the sum of the decimal digits of the whole number of minutes;
+	 * e.g. 13 for 409.9 minutes. Neither allocates nor boxes, unlike summing
+	 * the result of {@link #getDigits(double)}.
+	 *
+	 * @param minutes the number of minutes.
+	 * @return the sum of the digits.
+	 */
+	public int getDigitSum(final double minutes) {
+		int sum = 0;
 
-		final BigDecimal result = new BigDecimal(discount);
-		return result.setScale(2, RoundingMode.HALF_UP);
+		int value = (int) minutes;
+		while (value > 0) {
+			sum += value % 10;
+			value = value / 10;
+		}
+		return sum;
 	}
 
 	/**
+	 * Returns the decimal digits of the whole number of minutes, least
+	 * significant first; e.g. [9, 0, 4] for 409.9 minutes. Retained for
+	 * compatibility; prefer {@link #getDigitSum(double)} when only their sum
+	 * is needed.
 	 *
-	 * @param minutes
-	 * @return
+	 * @param minutes the number of minutes.
+	 * @return the digits.
 	 */
 	public List<Integer> getDigits(final double minutes) {
 		List<Integer> digits = new ArrayList<Integer>();
 
 		int value = (int) minutes;
 		while (value > 0) {
-			digits.add(new Integer(value % 10));
+			digits.add(Integer.valueOf(value % 10));
 			value = value / 10;
 		}
 		return digits;
@@ -26,6 +26,7 @@ package org.seanquinn.redi2.billing.discount;
 import java.math.BigDecimal;
 
 import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.CurrencyUtils;
 
 /**
  * Contract for calculating discounts.
@@ -43,4 +44,23 @@ public interface DiscountCalculator {
 	 * @return the calculated discount.
 	 */
 	BigDecimal calculateDiscount(Engagement engagement);
+
+	/**
+	 * Calculates the discount for an engagement of the passed length, in
+	 * whole cents. The result is the same as that of
+	 * {@link #calculateDiscount(Engagement)}.
+	 * <p>
+	 * By default, the discount is calculated by
+	 * {@link #calculateDiscount(Engagement)} and converted to cents, so that
+	 * calculators written before this method existed (including those named
+	 * in a file of tiers) still work; implementations should override it to
+	 * compute the discount without allocating.
+	 * </p>
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @return the calculated discount, in cents.
+	 */
+	default long calculateDiscountInCents(final long lengthMs) {
+		return CurrencyUtils.toCents(calculateDiscount(new Engagement(lengthMs)));
+	}
 }
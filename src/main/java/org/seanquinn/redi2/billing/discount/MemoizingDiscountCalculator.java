@@ -0,0 +1,175 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.discount;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.CurrencyUtils;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+/**
+ * An implementation of the {@link DiscountCalculator} which remembers the
+ * discounts calculated by another, so that engagements of a length that has
+ * been seen before are not calculated again.
+ * <p>
+ * The cache is a fixed-size, direct-mapped table indexed by the whole number
+ * of minutes of the engagement: an engagement of a whole number of minutes
+ * always occupies the same slot, and replaces whatever was there before.
+ * Each slot holds an immutable entry (the length, the discount in cents, and
+ * the discount as a shared {@code BigDecimal}) so entries may be read and
+ * replaced by any number of threads without locking; at worst, a race costs
+ * a second calculation.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class MemoizingDiscountCalculator implements DiscountCalculator {
+
+	/**
+	 * The default number of entries; enough for every whole number of minutes
+	 * in the medium engagement tier to have its own.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 17;
+
+	private final DiscountCalculator delegate;
+
+	private final Entry[] entries;
+
+	private final int mask;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Instantiates a new calculator which remembers up to
+	 * {@link #DEFAULT_CAPACITY} of the discounts of the passed calculator.
+	 *
+	 * @param delegate the calculator whose discounts are remembered.
+	 */
+	public MemoizingDiscountCalculator(final DiscountCalculator delegate) {
+		this(delegate, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new calculator which remembers up to {@code capacity} of
+	 * the discounts of the passed calculator.
+	 *
+	 * @param delegate the calculator whose discounts are remembered.
+	 * @param capacity the number of entries; must be a power of two.
+	 */
+	public MemoizingDiscountCalculator(final DiscountCalculator delegate, final int capacity) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("The capacity must be a positive power of two.");
+		}
+		this.delegate = delegate;
+		this.entries = new Entry[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public BigDecimal calculateDiscount(final Engagement engagement) {
+		return getEntry(engagement.getLengthMs()).discount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long calculateDiscountInCents(final long lengthMs) {
+		return getEntry(lengthMs).cents;
+	}
+
+	/**
+	 * Returns the number of discounts that were found in the cache.
+	 *
+	 * @return the number of hits.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of discounts that were not found in the cache, and
+	 * so were calculated.
+	 *
+	 * @return the number of misses.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the {@link DiscountCalculator} whose discounts are remembered.
+	 *
+	 * @return the {@code DiscountCalculator}.
+	 */
+	public DiscountCalculator getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Returns the entry for an engagement of the passed length, calculating
+	 * it (and replacing whatever occupied its slot) if it is not cached.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @return the entry.
+	 */
+	private Entry getEntry(final long lengthMs) {
+		final int index = (int) (lengthMs / TimeUtils.ONE_MINUTE_MS) & mask;
+
+		Entry entry = entries[index];
+		if (entry != null && entry.lengthMs == lengthMs) {
+			hits.increment();
+			return entry;
+		}
+
+		misses.increment();
+		final long cents = delegate.calculateDiscountInCents(lengthMs);
+		entry = new Entry(lengthMs, cents, CurrencyUtils.fromCents(cents));
+		entries[index] = entry;
+		return entry;
+	}
+
+	/**
+	 * An immutable, cached discount; its fields are final, so an entry is
+	 * safely published to other threads through the table.
+	 */
+	private static final class Entry {
+
+		private final long lengthMs;
+		private final long cents;
+		private final BigDecimal discount;
+
+		Entry(final long lengthMs, final long cents, final BigDecimal discount) {
+			this.lengthMs = lengthMs;
+			this.cents = cents;
+			this.discount = discount;
+		}
+	}
+}
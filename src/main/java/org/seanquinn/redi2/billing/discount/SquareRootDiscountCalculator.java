@@ -24,9 +24,10 @@
 package org.seanquinn.redi2.billing.discount;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.CurrencyUtils;
+import org.seanquinn.redi2.utils.TimeUtils;
 
 /**
  *
@@ -39,8 +40,14 @@ public class SquareRootDiscountCalculator implements DiscountCalculator {
 	 * {@inheritDoc}
 	 */
 	public BigDecimal calculateDiscount(final Engagement engagement) {
-		final double hours = engagement.getHours();
-		final BigDecimal discount = new BigDecimal(Math.sqrt(hours));
-		return discount.setScale(2, RoundingMode.HALF_UP);
+		return CurrencyUtils.fromCents(calculateDiscountInCents(engagement.getLengthMs()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long calculateDiscountInCents(final long lengthMs) {
+		final double hours = TimeUtils.toHours(lengthMs);
+		return CurrencyUtils.toCents(Math.sqrt(hours));
 	}
 }
@@ -0,0 +1,408 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.impl.BillingServiceImpl;
+import org.seanquinn.redi2.billing.rejection.Rejection;
+import org.seanquinn.redi2.billing.rejection.RejectionReason;
+import org.seanquinn.redi2.billing.rejection.RejectionSink;
+import org.seanquinn.redi2.billing.rejection.SamplingRejectionSink;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+
+/**
+ * A {@link Flow.Processor} which subscribes to a publisher of
+ * {@link Engagement engagements} and publishes a {@link BillingReport} for
+ * each, so that an unbounded stream of engagements can be billed without
+ * first being collected into a batch.
+ * <p>
+ * Engagements are requested from upstream {@value #DEFAULT_PREFETCH} at a
+ * time and billed on the thread that delivers them; nothing is requested
+ * until the first subscriber has subscribed, so no report is published
+ * before there is anyone to receive it. Once every subscriber has cancelled
+ * (or the processor is {@link #close() closed}) the subscription upstream is
+ * cancelled, and no more engagements are billed. Reports are published
+ * through a {@link SubmissionPublisher}, which blocks that thread while any
+ * subscriber's buffer is full; so a slow subscriber slows the requests made
+ * upstream, and at most a prefetch of engagements and a buffer of reports
+ * per subscriber are ever held in memory.
+ * </p>
+ * <p>
+ * As with {@link BillingService#process(java.util.Collection)}, an engagement
+ * which cannot be billed is passed to a {@link RejectionSink}, along with its
+ * position in the stream, and skipped; it does not terminate the stream. An
+ * error from upstream is passed on to every subscriber.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class BillingProcessor extends SubmissionPublisher<BillingReport> implements
+		Flow.Processor<Engagement, BillingReport> {
+
+	/** The default number of engagements requested from upstream at a time. */
+	public static final int DEFAULT_PREFETCH = 256;
+
+	private final BillingService billingService;
+
+	private final int prefetch;
+
+	private final RejectionSink rejectionSink;
+
+	/** The subscription to upstream. */
+	private volatile Flow.Subscription subscription;
+
+	/** The number of subscribers which have neither cancelled nor completed. */
+	private final AtomicInteger subscribers = new AtomicInteger();
+
+	/** Whether engagements have been requested from upstream. */
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	/** Whether the subscription to upstream has been cancelled. */
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+
+	/**
+	 * The number of engagements received since more were last requested;
+	 * only accessed by the delivering thread.
+	 */
+	private int received;
+
+	/**
+	 * The position in the stream of the next engagement; only accessed by the
+	 * delivering thread.
+	 */
+	private long position;
+
+	/**
+	 * Instantiates a new processor which bills through a new
+	 * {@link BillingServiceImpl}, and publishes to subscribers on the common
+	 * {@link ForkJoinPool}.
+	 */
+	public BillingProcessor() {
+		this(new BillingServiceImpl());
+	}
+
+	/**
+	 * Instantiates a new processor which bills through the passed
+	 * {@link BillingService}, and publishes to subscribers on the common
+	 * {@link ForkJoinPool}.
+	 *
+	 * @param billingService the billing service.
+	 */
+	public BillingProcessor(final BillingService billingService) {
+		this(billingService, ForkJoinPool.commonPool(), Flow.defaultBufferSize(), DEFAULT_PREFETCH);
+	}
+
+	/**
+	 * Instantiates a new processor which bills through the passed
+	 * {@link BillingService}, and publishes to subscribers on the passed
+	 * {@link Executor}.
+	 *
+	 * @param billingService the billing service.
+	 * @param executor the executor on which reports are delivered.
+	 * @param maxBufferCapacity the maximum number of reports buffered per
+	 * 		subscriber.
+	 * @param prefetch the number of engagements requested from upstream at a
+	 * 		time.
+	 */
+	public BillingProcessor(final BillingService billingService, final Executor executor,
+			final int maxBufferCapacity, final int prefetch) {
+		this(billingService, executor, maxBufferCapacity, prefetch, billingService instanceof BillingServiceImpl
+				? ((BillingServiceImpl) billingService).getRejectionSink() : new SamplingRejectionSink());
+	}
+
+	/**
+	 * Instantiates a new processor which bills through the passed
+	 * {@link BillingService}, publishes to subscribers on the passed
+	 * {@link Executor}, and rejects engagements which cannot be billed to
+	 * the passed {@link RejectionSink}.
+	 *
+	 * @param billingService the billing service.
+	 * @param executor the executor on which reports are delivered.
+	 * @param maxBufferCapacity the maximum number of reports buffered per
+	 * 		subscriber.
+	 * @param prefetch the number of engagements requested from upstream at a
+	 * 		time.
+	 * @param rejectionSink the rejection sink.
+	 */
+	public BillingProcessor(final BillingService billingService, final Executor executor,
+			final int maxBufferCapacity, final int prefetch, final RejectionSink rejectionSink) {
+		super(executor, maxBufferCapacity);
+		if (prefetch <= 0) {
+			throw new IllegalArgumentException("The prefetch must be positive.");
+		}
+		this.billingService = billingService;
+		this.prefetch = prefetch;
+		this.rejectionSink = rejectionSink;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onSubscribe(final Flow.Subscription subscription) {
+		if (this.subscription != null) {
+			// ** A processor may only be subscribed to one publisher.
+			subscription.cancel();
+			return;
+		}
+		this.subscription = subscription;
+		if (cancelled.get()) {
+			subscription.cancel();
+			return;
+		}
+		start();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The first subscriber starts the requests made upstream.
+	 * </p>
+	 */
+	@Override
+	public void subscribe(final Flow.Subscriber<? super BillingReport> subscriber) {
+		subscribers.incrementAndGet();
+		super.subscribe(new CountedSubscriber(subscriber));
+		start();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isSubscribed(final Flow.Subscriber<? super BillingReport> subscriber) {
+		// ** A counted subscriber is equal to another which wraps the same subscriber.
+		return super.isSubscribed(new CountedSubscriber(subscriber));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Flow.Subscriber<? super BillingReport>> getSubscribers() {
+		final List<Flow.Subscriber<? super BillingReport>> subscribers =
+				new ArrayList<Flow.Subscriber<? super BillingReport>>();
+		for (final Flow.Subscriber<? super BillingReport> subscriber : super.getSubscribers()) {
+			subscribers.add(((CountedSubscriber) subscriber).subscriber);
+		}
+		return subscribers;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The subscription to upstream is cancelled.
+	 * </p>
+	 */
+	@Override
+	public void close() {
+		cancel();
+		super.close();
+	}
+
+	/**
+	 * Requests the first engagements from upstream, once it has been
+	 * subscribed to and there is a subscriber to publish their reports to.
+	 */
+	private void start() {
+		final Flow.Subscription subscription = this.subscription;
+		if (subscription != null && subscribers.get() > 0 && !cancelled.get() && started.compareAndSet(false, true)) {
+			subscription.request(prefetch);
+		}
+	}
+
+	/**
+	 * Cancels the subscription to upstream, if it has not been already.
+	 */
+	private void cancel() {
+		if (cancelled.compareAndSet(false, true)) {
+			final Flow.Subscription subscription = this.subscription;
+			if (subscription != null) {
+				subscription.cancel();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onNext(final Engagement engagement) {
+		// ** Engagements still in flight when upstream was cancelled are ignored.
+		if (cancelled.get()) {
+			return;
+		}
+
+		// ** Replenish once half of the prefetch has been received, so that
+		// ** upstream need not wait for each request to be made.
+		if (++received >= (prefetch + 1) / 2) {
+			subscription.request(received);
+			received = 0;
+		}
+
+		final long index = position++;
+		if (engagement.getLengthMs() < 0) {
+			rejectionSink.reject(new Rejection(RejectionReason.NEGATIVE_LENGTH, index, engagement));
+			return;
+		}
+
+		final BillingReport report;
+		try {
+			report = billingService.process(engagement);
+		}
+		catch (final RuntimeException ex) {
+			rejectionSink.reject(new Rejection(RejectionReason.BILLING_FAILED, index, engagement, ex.toString()));
+			return;
+		}
+
+		try {
+			submit(report);
+		}
+		catch (final IllegalStateException ex) {
+			// ** The last subscriber cancelled (or the processor was closed)
+			// ** while the engagement was billed; no one remains to receive it.
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onError(final Throwable throwable) {
+		closeExceptionally(throwable);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onComplete() {
+		super.close();
+	}
+
+	/**
+	 * Returns the {@link BillingService} through which engagements are
+	 * billed.
+	 *
+	 * @return the billing service.
+	 */
+	public BillingService getBillingService() {
+		return billingService;
+	}
+
+	/**
+	 * Returns the {@link RejectionSink} to which engagements which cannot be
+	 * billed are rejected.
+	 *
+	 * @return the rejection sink.
+	 */
+	public RejectionSink getRejectionSink() {
+		return rejectionSink;
+	}
+
+	/**
+	 * Wraps a subscriber so that the processor knows when it has cancelled or
+	 * completed, and can cancel upstream once no subscribers remain.
+	 */
+	private class CountedSubscriber implements Flow.Subscriber<BillingReport> {
+
+		private final Flow.Subscriber<? super BillingReport> subscriber;
+
+		/** Whether the subscriber has cancelled or completed. */
+		private final AtomicBoolean done = new AtomicBoolean();
+
+		CountedSubscriber(final Flow.Subscriber<? super BillingReport> subscriber) {
+			if (subscriber == null) {
+				throw new NullPointerException("The subscriber must not be null.");
+			}
+			this.subscriber = subscriber;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onSubscribe(final Flow.Subscription subscription) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+
+				public void request(final long n) {
+					subscription.request(n);
+				}
+
+				public void cancel() {
+					subscription.cancel();
+					done();
+				}
+			});
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onNext(final BillingReport report) {
+			subscriber.onNext(report);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onError(final Throwable throwable) {
+			done();
+			subscriber.onError(throwable);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void onComplete() {
+			done();
+			subscriber.onComplete();
+		}
+
+		/**
+		 * Counts the subscriber out, cancelling upstream if it was the last.
+		 */
+		private void done() {
+			if (done.compareAndSet(false, true) && subscribers.decrementAndGet() == 0) {
+				close();
+			}
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof CountedSubscriber && ((CountedSubscriber) obj).subscriber.equals(subscriber);
+		}
+
+		@Override
+		public int hashCode() {
+			return subscriber.hashCode();
+		}
+	}
+}
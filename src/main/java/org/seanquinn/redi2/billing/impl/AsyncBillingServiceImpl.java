@@ -0,0 +1,194 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.seanquinn.redi2.billing.AsyncBillingService;
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+
+/**
+ * Implementation of the {@link AsyncBillingService}, which bills through a
+ * {@link BillingService} on an {@link Executor}.
+ * <p>
+ * By default, each billing operation runs on a virtual thread of its own
+ * when the runtime supports them (Java 21 and later), so that callers may
+ * overlap billing with I/O without tying up platform threads; on older
+ * runtimes it runs on the common {@link ForkJoinPool}. A service which
+ * created its own executor should be {@link #shutdown() shut down} once it
+ * is no longer needed.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class AsyncBillingServiceImpl implements AsyncBillingService {
+
+	private final BillingService billingService;
+
+	private final Executor executor;
+
+	/** Whether the executor was created by, and so is shut down with, this service. */
+	private final boolean ownsExecutor;
+
+	/**
+	 * Instantiates a new asynchronous billing service which bills through a
+	 * new {@link BillingServiceImpl} on the default executor.
+	 */
+	public AsyncBillingServiceImpl() {
+		this(new BillingServiceImpl());
+	}
+
+	/**
+	 * Instantiates a new asynchronous billing service which bills through the
+	 * passed {@link BillingService} on the default executor.
+	 *
+	 * @param billingService the billing service.
+	 */
+	public AsyncBillingServiceImpl(final BillingService billingService) {
+		this(billingService, newDefaultExecutor(), true);
+	}
+
+	/**
+	 * Instantiates a new asynchronous billing service which bills through the
+	 * passed {@link BillingService} on the passed {@link Executor}, which is
+	 * left to its owner to shut down.
+	 *
+	 * @param billingService the billing service.
+	 * @param executor the executor.
+	 */
+	public AsyncBillingServiceImpl(final BillingService billingService, final Executor executor) {
+		this(billingService, executor, false);
+	}
+
+	private AsyncBillingServiceImpl(final BillingService billingService, final Executor executor,
+			final boolean ownsExecutor) {
+		this.billingService = billingService;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public CompletableFuture<BigDecimal> quoteAsync(final Engagement engagement) {
+		return CompletableFuture.supplyAsync(new Supplier<BigDecimal>() {
+			public BigDecimal get() {
+				return billingService.quote(engagement);
+			}
+		}, executor);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public CompletableFuture<BillingReport> processAsync(final Engagement engagement) {
+		return CompletableFuture.supplyAsync(new Supplier<BillingReport>() {
+			public BillingReport get() {
+				return billingService.process(engagement);
+			}
+		}, executor);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The engagements are copied before this method returns, so the passed
+	 * collection may be modified once it has.
+	 * </p>
+	 */
+	public CompletableFuture<List<BillingReport>> processAsync(final Collection<Engagement> engagements) {
+		final List<Engagement> batch = new ArrayList<Engagement>(engagements);
+		return CompletableFuture.supplyAsync(new Supplier<List<BillingReport>>() {
+			public List<BillingReport> get() {
+				return billingService.process(batch);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Returns the {@link BillingService} through which engagements are
+	 * billed.
+	 *
+	 * @return the billing service.
+	 */
+	public BillingService getBillingService() {
+		return billingService;
+	}
+
+	/**
+	 * Returns the {@link Executor} on which engagements are billed.
+	 *
+	 * @return the executor.
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Shuts down the executor, if this service created it; operations which
+	 * were already submitted are completed, but no more are accepted. An
+	 * executor which was passed to this service is left running.
+	 */
+	public void shutdown() {
+		if (ownsExecutor && executor instanceof ExecutorService) {
+			((ExecutorService) executor).shutdown();
+		}
+	}
+
+	/**
+	 * Returns an executor which runs each task on a new virtual thread, if the
+	 * runtime supports them, or otherwise the common {@link ForkJoinPool}. The
+	 * caller owns the executor, and should shut it down if it is an
+	 * {@link ExecutorService}.
+	 * <p>
+	 * Virtual threads are created reflectively: the build targets Java 11,
+	 * whose API predates them, so the factory method cannot be called
+	 * directly.
+	 * </p>
+	 *
+	 * @return the executor.
+	 */
+	public static Executor newDefaultExecutor() {
+		try {
+			final Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (Executor) factory.invoke(null);
+		}
+		catch (final Exception ex) {
+			// ** e.g. the runtime predates virtual threads, they are disabled, or access is denied.
+			return ForkJoinPool.commonPool();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the billing of a batch of engagements by a
+ * {@link BillingServiceImpl}.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@Name("org.seanquinn.redi2.BillingBatch")
+@Label("Billing Batch")
+@Category({ "Redi2", "Billing" })
+@Description("A batch of engagements billed by the billing service")
+@StackTrace(false)
+class BillingBatchEvent extends Event {
+
+	@Label("Engagements")
+	@Description("The number of engagements in the batch")
+	int engagements;
+
+	@Label("Billed")
+	@Description("The number of engagements that were billed")
+	int billed;
+
+	@Label("Rule Set Version")
+	long ruleSetVersion;
+
+	@Label("Parallel")
+	boolean parallel;
+}
@@ -28,55 +28,217 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.seanquinn.redi2.billing.BatchBillingService;
 import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.metrics.BillingMetrics;
+import org.seanquinn.redi2.billing.rejection.Rejection;
+import org.seanquinn.redi2.billing.rejection.RejectionReason;
+import org.seanquinn.redi2.billing.rejection.RejectionSink;
+import org.seanquinn.redi2.billing.rejection.SamplingRejectionSink;
 import org.seanquinn.redi2.billing.rule.BillingRule;
 import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.billing.rule.CostTable;
+import org.seanquinn.redi2.billing.rule.RuleSet;
+import org.seanquinn.redi2.billing.rule.RuleSetRegistry;
 import org.seanquinn.redi2.domain.BillingReport;
 import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.domain.id.RandomReportIdGenerator;
+import org.seanquinn.redi2.domain.id.ReportIdGenerator;
+import org.seanquinn.redi2.utils.CurrencyUtils;
 
 /**
- * Implementation of the {@link BillingService}.
+ * Implementation of the {@link BillingService} and the
+ * {@link BatchBillingService}.
  *
  * @author Sean.Quinn
  * @since 1.0
  */
-public class BillingServiceImpl implements BillingService {
+public class BillingServiceImpl implements BillingService, BatchBillingService {
+
+	/**
+	 * The registry of the rule set by which each engagement is billed; each
+	 * engagement (or batch) takes the active rule set once, and is billed
+	 * entirely by it.
+	 */
+	private final RuleSetRegistry ruleSets;
+
+	/**
+	 * The generator from which the ID of each report this service produces
+	 * is generated.
+	 */
+	private final ReportIdGenerator reportIdGenerator;
+
+	/**
+	 * The metrics notified of each engagement and batch this service bills;
+	 * by default, none, in which case nothing is timed.
+	 */
+	private volatile BillingMetrics metrics = BillingMetrics.NONE;
+
+	/**
+	 * The sink to which each engagement of a batch that cannot be billed is
+	 * rejected; by default, one which counts and samples them.
+	 */
+	private volatile RejectionSink rejectionSink = new SamplingRejectionSink();
+
+	/**
+	 * Instantiates a new billing service with the default billing rules.
+	 */
+	public BillingServiceImpl() {
+		this(new BillingRuleFactory());
+	}
+
+	/**
+	 * Instantiates a new billing service which resolves the rule for each
+	 * engagement from the passed {@link BillingRuleFactory}.
+	 *
+	 * @param ruleFactory the billing rule factory.
+	 */
+	public BillingServiceImpl(final BillingRuleFactory ruleFactory) {
+		this(ruleFactory, new RandomReportIdGenerator());
+	}
+
+	/**
+	 * Instantiates a new billing service which resolves the rule for each
+	 * engagement from the passed {@link BillingRuleFactory}, and generates
+	 * the ID of each report with the passed {@link ReportIdGenerator}.
+	 *
+	 * @param ruleFactory the billing rule factory.
+	 * @param reportIdGenerator the report ID generator.
+	 */
+	public BillingServiceImpl(final BillingRuleFactory ruleFactory, final ReportIdGenerator reportIdGenerator) {
+		this(new RuleSetRegistry(ruleFactory), reportIdGenerator);
+	}
+
+	/**
+	 * Instantiates a new billing service which looks up the cost of each
+	 * engagement covered by the passed {@link CostTable} (once it is ready),
+	 * resolves the rule for every other engagement from the factory the
+	 * table was built from, and generates the ID of each report with the
+	 * passed {@link ReportIdGenerator}.
+	 *
+	 * @param costTable the cost table.
+	 * @param reportIdGenerator the report ID generator.
+	 */
+	public BillingServiceImpl(final CostTable costTable, final ReportIdGenerator reportIdGenerator) {
+		this(new RuleSetRegistry(costTable), reportIdGenerator);
+	}
+
+	/**
+	 * Instantiates a new billing service which bills each engagement by the
+	 * rule set active in the passed {@link RuleSetRegistry} when it is
+	 * billed, so that the rules may be replaced while the service is in use,
+	 * and generates the ID of each report with the passed
+	 * {@link ReportIdGenerator}.
+	 *
+	 * @param ruleSets the rule set registry.
+	 * @param reportIdGenerator the report ID generator.
+	 */
+	public BillingServiceImpl(final RuleSetRegistry ruleSets, final ReportIdGenerator reportIdGenerator) {
+		this.ruleSets = ruleSets;
+		this.reportIdGenerator = reportIdGenerator;
+	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public BillingReport process(final Engagement engagement) {
+		return process(ruleSets.getRuleSet(), engagement);
+	}
+
+	/**
+	 * Processes an {@link Engagement} for billing by the passed
+	 * {@link RuleSet}.
+	 *
+	 * @param ruleSet the rule set.
+	 * @param engagement the {@code Engagement}.
+	 * @return the {@code BillingReport}.
+	 */
+	protected BillingReport process(final RuleSet ruleSet, final Engagement engagement) {
+		final BillingMetrics metrics = this.metrics;
 		if (engagement.getLengthMs() < 0) {
+			metrics.onError();
 			throw new IllegalArgumentException("Failed attempted to process engagement: "
 					+ engagement + "; An engagement must have a non-negative length.");
 		}
 
-		final BillingRuleFactory factory = new BillingRuleFactory();
-		final BillingRule rule = factory.getRule(engagement);
-		final BigDecimal cost = rule.calculateCost(engagement);
+		final long cost = calculateCostInCents(ruleSet, engagement, metrics);
+		if (metrics != BillingMetrics.NONE) {
+			metrics.onProcessed(ruleSet.getRuleFactory().getTier(engagement.getLengthMs()), 1);
+		}
 
-		return new BillingReport(engagement, cost);
+		return new BillingReport(engagement, CurrencyUtils.fromCents(cost), reportIdGenerator, ruleSet.getVersion());
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * The whole batch is billed by the rule set active when it began.
+	 * </p>
 	 */
 	public List<BillingReport> process(final Collection<Engagement> engagements) {
+		final BillingBatchEvent event = new BillingBatchEvent();
+		event.begin();
+
+		final RuleSet ruleSet = ruleSets.getRuleSet();
+		metrics.onBatch(engagements.size());
 		final List<BillingReport> reports = new ArrayList<BillingReport>();
+		long position = 0;
 		for (final Engagement engagement : engagements) {
-			try {
-				final BillingReport report = process(engagement);
+			final BillingReport report = processQuietly(ruleSet, engagement, position++);
+			if (report != null) {
 				reports.add(report);
 			}
-			catch (final Exception ex) {
-				// In lieu of proper logging, e.g. Log4J
-				System.err.println("Error processing engagement: " + engagement);
-				ex.printStackTrace();
-			}
 		}
+
+		commit(event, engagements.size(), reports.size(), ruleSet, false);
 		return reports;
 	}
 
+	/**
+	 * Processes an {@link Engagement} for billing, as with
+	 * {@link #process(Engagement)}, except that if the engagement cannot be
+	 * processed it is passed to the {@link RejectionSink} and {@code null} is
+	 * returned; one bad engagement does not prevent the rest of a batch from
+	 * being billed.
+	 *
+	 * @param engagement the {@code Engagement}.
+	 * @return the {@code BillingReport}, or {@code null} if the engagement
+	 * 		could not be processed.
+	 */
+	protected BillingReport processQuietly(final Engagement engagement) {
+		return processQuietly(ruleSets.getRuleSet(), engagement, -1);
+	}
+
+	/**
+	 * Processes an {@link Engagement} for billing by the passed
+	 * {@link RuleSet}, as with {@link #processQuietly(Engagement)}. An
+	 * engagement with a negative length is rejected without an exception
+	 * being created.
+	 *
+	 * @param ruleSet the rule set.
+	 * @param engagement the {@code Engagement}.
+	 * @param position the position of the engagement in its batch, or -1 if
+	 * 		it is not known.
+	 * @return the {@code BillingReport}, or {@code null} if the engagement
+	 * 		could not be processed.
+	 */
+	protected BillingReport processQuietly(final RuleSet ruleSet, final Engagement engagement,
+			final long position) {
+		if (engagement.getLengthMs() < 0) {
+			metrics.onError();
+			rejectionSink.reject(new Rejection(RejectionReason.NEGATIVE_LENGTH, position, engagement));
+			return null;
+		}
+		try {
+			return process(ruleSet, engagement);
+		}
+		catch (final RuntimeException ex) {
+			metrics.onError();
+			rejectionSink.reject(new Rejection(RejectionReason.BILLING_FAILED, position, engagement, ex.toString()));
+			return null;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -84,9 +246,256 @@ public class BillingServiceImpl implements BillingService {
 		if (engagement.getLengthMs() < 0) {
 			throw new IllegalArgumentException("An engagement must have a non-negative length.");
 		}
-		final BillingRuleFactory factory = new BillingRuleFactory();
-		final BillingRule rule = factory.getRule(engagement);
-		return rule.calculateCost(engagement);
+		return CurrencyUtils.fromCents(calculateCostInCents(ruleSets.getRuleSet(), engagement, metrics));
+	}
+
+	/**
+	 * Returns the cost of an {@link Engagement}, in cents; looked up from the
+	 * rule set's cost table if it covers the engagement, and otherwise
+	 * calculated by the engagement's rule. The time taken to resolve the rule
+	 * and calculate the cost is recorded in the passed metrics.
+	 *
+	 * @param ruleSet the rule set.
+	 * @param engagement the {@code Engagement}.
+	 * @param metrics the metrics.
+	 * @return the cost, in cents.
+	 */
+	private static long calculateCostInCents(final RuleSet ruleSet, final Engagement engagement,
+			final BillingMetrics metrics) {
+		final boolean timed = metrics.isTimed();
+		final long start = timed ? System.nanoTime() : 0;
+
+		final long lengthMs = engagement.getLengthMs();
+		final CostTable costTable = ruleSet.getCostTable();
+		if (costTable != null && costTable.covers(lengthMs) && costTable.isReady()) {
+			final long cost = costTable.getCostInCents(lengthMs);
+			if (timed) {
+				metrics.onCostCalculated(System.nanoTime() - start);
+			}
+			return cost;
+		}
+
+		final BillingRule rule = ruleSet.getRuleFactory().getRule(engagement);
+		final long resolved = timed ? System.nanoTime() : 0;
+		final long cost = rule.calculateCostInCents(lengthMs);
+		if (timed) {
+			metrics.onRuleResolved(resolved - start);
+			metrics.onCostCalculated(System.nanoTime() - resolved);
+		}
+		return cost;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Consecutive engagements billed by the same rule are passed to it as a
+	 * single run, which it bills in one loop; likewise, consecutive
+	 * engagements covered by the cost table are looked up in one loop. The
+	 * whole batch is billed by the rule set active when it began.
+	 * </p>
+	 */
+	public long billBatch(final long[] lengthsMs, final long[] outCents) {
+		final BillingBatchEvent event = new BillingBatchEvent();
+		event.begin();
+
+		final BillingMetrics metrics = this.metrics;
+		if (outCents.length < lengthsMs.length) {
+			metrics.onError();
+			throw new IllegalArgumentException("Unable to bill a batch of " + lengthsMs.length
+					+ " engagements into an array of " + outCents.length + " costs.");
+		}
+		for (int i = 0; i < lengthsMs.length; i++) {
+			if (lengthsMs[i] < 0) {
+				metrics.onError();
+				throw new IllegalArgumentException("Failed attempted to bill engagement " + i
+						+ " of the batch (" + lengthsMs[i] + "ms); An engagement must have a non-negative length.");
+			}
+		}
+
+		final RuleSet ruleSet = ruleSets.getRuleSet();
+		final BillingRuleFactory ruleFactory = ruleSet.getRuleFactory();
+		final CostTable costTable = ruleSet.getCostTable();
+		final CostTable table = costTable != null && costTable.isReady() ? costTable : null;
+		final boolean counted = metrics != BillingMetrics.NONE;
+		metrics.onBatch(lengthsMs.length);
+
+		int from = 0;
+		while (from < lengthsMs.length) {
+			final boolean timed = counted && metrics.isTimed();
+			final long start = timed ? System.nanoTime() : 0;
+			int to = from + 1;
+			if (table != null && table.covers(lengthsMs[from])) {
+				while (to < lengthsMs.length && table.covers(lengthsMs[to])) {
+					to++;
+				}
+				table.getCostsInCents(lengthsMs, from, to, outCents);
+				if (timed) {
+					metrics.onCostCalculated(System.nanoTime() - start);
+				}
+				if (counted) {
+					recordTiers(ruleFactory, lengthsMs, from, to, metrics);
+				}
+			}
+			else {
+				final BillingRule rule = ruleFactory.getRule(lengthsMs[from]);
+				while (to < lengthsMs.length && (table == null || !table.covers(lengthsMs[to]))
+						&& ruleFactory.getRule(lengthsMs[to]) == rule) {
+					to++;
+				}
+				final long resolved = timed ? System.nanoTime() : 0;
+				rule.calculateCostsInCents(lengthsMs, from, to, outCents);
+				if (timed) {
+					metrics.onRuleResolved(resolved - start);
+					metrics.onCostCalculated(System.nanoTime() - resolved);
+				}
+				if (counted) {
+					metrics.onProcessed(ruleFactory.getTier(lengthsMs[from]), to - from);
+				}
+			}
+			from = to;
+		}
+
+		long total = 0;
+		for (int i = 0; i < lengthsMs.length; i++) {
+			total += outCents[i];
+		}
+
+		commit(event, lengthsMs.length, lengthsMs.length, ruleSet, false);
+		return total;
+	}
+
+	/**
+	 * Ends and, if it is being recorded, commits a {@link BillingBatchEvent}.
+	 *
+	 * @param event the event, which has begun.
+	 * @param engagements the number of engagements in the batch.
+	 * @param billed the number of engagements that were billed.
+	 * @param ruleSet the rule set by which the batch was billed.
+	 * @param parallel whether the batch was billed in parallel.
+	 */
+	static void commit(final BillingBatchEvent event, final int engagements, final int billed,
+			final RuleSet ruleSet, final boolean parallel) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.engagements = engagements;
+			event.billed = billed;
+			event.ruleSetVersion = ruleSet.getVersion();
+			event.parallel = parallel;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Records the number of engagements in each tier of the range
+	 * {@code [from, to)} of a batch, counting each run of engagements in the
+	 * same tier at once.
+	 *
+	 * @param ruleFactory the billing rule factory.
+	 * @param lengthsMs the lengths of the engagements, in milliseconds.
+	 * @param from the index of the first engagement.
+	 * @param to the index after the last engagement.
+	 * @param metrics the metrics.
+	 */
+	private static void recordTiers(final BillingRuleFactory ruleFactory, final long[] lengthsMs, final int from,
+			final int to, final BillingMetrics metrics) {
+		int start = from;
+		int tier = ruleFactory.getTier(lengthsMs[from]);
+		for (int i = from + 1; i < to; i++) {
+			final int next = ruleFactory.getTier(lengthsMs[i]);
+			if (next != tier) {
+				metrics.onProcessed(tier, i - start);
+				start = i;
+				tier = next;
+			}
+		}
+		metrics.onProcessed(tier, to - start);
+	}
+
+	/**
+	 * Returns the {@link BillingMetrics} notified of each engagement and
+	 * batch this service bills.
+	 *
+	 * @return the metrics.
+	 */
+	public BillingMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the {@link BillingMetrics} to be notified of each engagement and
+	 * batch this service bills; pass {@link BillingMetrics#NONE} to stop
+	 * recording them.
+	 *
+	 * @param metrics the metrics.
+	 */
+	public void setMetrics(final BillingMetrics metrics) {
+		if (metrics == null) {
+			throw new IllegalArgumentException("The metrics must not be null; use BillingMetrics.NONE.");
+		}
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the {@link RejectionSink} to which engagements of a batch that
+	 * cannot be billed are rejected.
+	 *
+	 * @return the rejection sink.
+	 */
+	public RejectionSink getRejectionSink() {
+		return rejectionSink;
+	}
+
+	/**
+	 * Sets the {@link RejectionSink} to which engagements of a batch that
+	 * cannot be billed are rejected.
+	 *
+	 * @param rejectionSink the rejection sink.
+	 */
+	public void setRejectionSink(final RejectionSink rejectionSink) {
+		if (rejectionSink == null) {
+			throw new IllegalArgumentException("The rejection sink must not be null.");
+		}
+		this.rejectionSink = rejectionSink;
+	}
+
+	/**
+	 * Returns the {@link RuleSetRegistry} of the rule set by which
+	 * engagements are billed.
+	 *
+	 * @return the rule set registry.
+	 */
+	public RuleSetRegistry getRuleSets() {
+		return ruleSets;
+	}
+
+	/**
+	 * Returns the {@link BillingRuleFactory} from which billing rules are
+	 * currently resolved.
+	 *
+	 * @return the billing rule factory.
+	 */
+	public BillingRuleFactory getRuleFactory() {
+		return ruleSets.getRuleSet().getRuleFactory();
+	}
+
+	/**
+	 * Returns the {@link CostTable} from which the costs of engagements of
+	 * whole minutes are currently looked up, if any.
+	 *
+	 * @return the cost table, or {@code null}.
+	 */
+	public CostTable getCostTable() {
+		return ruleSets.getRuleSet().getCostTable();
+	}
+
+	/**
+	 * Returns the {@link ReportIdGenerator} from which report IDs are
+	 * generated.
+	 *
+	 * @return the report ID generator.
+	 */
+	public ReportIdGenerator getReportIdGenerator() {
+		return reportIdGenerator;
 	}
 
 }
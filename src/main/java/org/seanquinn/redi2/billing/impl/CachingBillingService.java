@@ -0,0 +1,305 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.rule.RuleSet;
+import org.seanquinn.redi2.billing.rule.RuleSetListener;
+import org.seanquinn.redi2.billing.rule.RuleSetRegistry;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+
+/**
+ * A {@link BillingService} which caches the quotes of another, so that
+ * engagements of a length that was quoted recently are not billed again.
+ * Processing is always delegated, as every report is unique.
+ * <p>
+ * Quotes are keyed on the exact length of the engagement and held in a
+ * fixed number of segments, each a least-recently-used map guarded by its
+ * own lock, so that concurrent callers rarely contend. When a segment is
+ * full, its least recently used quote is evicted.
+ * </p>
+ * <p>
+ * Quotes are only valid for the rules they were made by, so the cache is
+ * cleared whenever a new {@link RuleSet} is published. The cache subscribes
+ * itself to the {@link RuleSetRegistry} of a {@link BillingServiceImpl};
+ * in front of any other service, it must be registered as a listener of
+ * whichever registry that service bills by.
+ * </p>
+ * <p>
+ * A lookup costs a lock and a boxed key, which is more than quoting through
+ * the default rules costs; the cache pays off in front of services whose
+ * quotes are expensive, such as remote or heavily customised ones.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class CachingBillingService implements BillingService, RuleSetListener {
+
+	/** The default number of quotes held. */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/** The default number of segments; must be a power of two. */
+	public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+	private final BillingService delegate;
+
+	private final Segment[] segments;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	/** Incremented each time the cache is cleared, so that quotes made before are not stored after. */
+	private final AtomicInteger generation = new AtomicInteger();
+
+	/**
+	 * Instantiates a new service which caches up to
+	 * {@link #DEFAULT_CAPACITY} quotes of the passed service.
+	 *
+	 * @param delegate the service whose quotes are cached.
+	 */
+	public CachingBillingService(final BillingService delegate) {
+		this(delegate, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new service which caches up to {@code capacity} quotes
+	 * of the passed service.
+	 *
+	 * @param delegate the service whose quotes are cached.
+	 * @param capacity the number of quotes held.
+	 */
+	public CachingBillingService(final BillingService delegate, final int capacity) {
+		this(delegate, capacity, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * Instantiates a new service which caches up to {@code capacity} quotes
+	 * of the passed service, in {@code concurrencyLevel} independently
+	 * locked segments.
+	 *
+	 * @param delegate the service whose quotes are cached.
+	 * @param capacity the number of quotes held; it is divided evenly
+	 * 		between the segments.
+	 * @param concurrencyLevel the number of segments; must be a power of
+	 * 		two, and no more than the capacity.
+	 */
+	public CachingBillingService(final BillingService delegate, final int capacity, final int concurrencyLevel) {
+		if (concurrencyLevel < 1 || Integer.bitCount(concurrencyLevel) != 1) {
+			throw new IllegalArgumentException("The concurrency level must be a positive power of two.");
+		}
+		if (capacity < concurrencyLevel) {
+			throw new IllegalArgumentException("The capacity must be at least the concurrency level.");
+		}
+		this.delegate = delegate;
+		this.segments = new Segment[concurrencyLevel];
+		for (int i = 0; i < concurrencyLevel; i++) {
+			segments[i] = new Segment(capacity / concurrencyLevel);
+		}
+		if (delegate instanceof BillingServiceImpl) {
+			((BillingServiceImpl) delegate).getRuleSets().addListener(this);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public BigDecimal quote(final Engagement engagement) {
+		final Long key = Long.valueOf(engagement.getLengthMs());
+		final Segment segment = segmentFor(engagement.getLengthMs());
+
+		BigDecimal quote;
+		synchronized (segment) {
+			quote = segment.get(key);
+		}
+		if (quote != null) {
+			hits.increment();
+			return quote;
+		}
+
+		// ** Quoted outside of the lock; a race costs no more than a second quote.
+		misses.increment();
+		final int quotedGeneration = generation.get();
+		quote = delegate.quote(engagement);
+		synchronized (segment) {
+			// ** If the rules changed while quoting, the quote may be by the old ones.
+			if (quotedGeneration == generation.get()) {
+				segment.put(key, quote);
+			}
+		}
+		return quote;
+	}
+
+	/**
+	 * Clears the cache when a new rule set is published, as its quotes were
+	 * made by the rules that were replaced.
+	 *
+	 * @param previous the rule set that was replaced.
+	 * @param current the rule set that was published.
+	 */
+	public void onPublished(final RuleSet previous, final RuleSet current) {
+		clear();
+	}
+
+	/**
+	 * Removes every quote from the cache.
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		for (final Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public BillingReport process(final Engagement engagement) {
+		return delegate.process(engagement);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<BillingReport> process(final Collection<Engagement> engagements) {
+		return delegate.process(engagements);
+	}
+
+	/**
+	 * Returns the number of quotes that were found in the cache.
+	 *
+	 * @return the number of hits.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of quotes that were not found in the cache, and so
+	 * were delegated.
+	 *
+	 * @return the number of misses.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of quotes that were evicted to make room for
+	 * others.
+	 *
+	 * @return the number of evictions.
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the proportion of quotes that were found in the cache, between
+	 * zero and one; zero if nothing has been quoted.
+	 *
+	 * @return the hit ratio.
+	 */
+	public double getHitRatio() {
+		final long hitCount = getHits();
+		final long total = hitCount + getMisses();
+		return total == 0 ? 0.0 : (double) hitCount / total;
+	}
+
+	/**
+	 * Returns the number of quotes currently held.
+	 *
+	 * @return the size of the cache.
+	 */
+	public int size() {
+		int size = 0;
+		for (final Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the {@link BillingService} whose quotes are cached.
+	 *
+	 * @return the {@code BillingService}.
+	 */
+	public BillingService getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Returns the segment which holds the quote for the passed length.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @return the segment.
+	 */
+	private Segment segmentFor(final long lengthMs) {
+		// ** Lengths are often whole minutes, so their low bits are spread before masking.
+		int hash = (int) (lengthMs ^ (lengthMs >>> 32)) * 0x9E3779B9;
+		hash ^= hash >>> 16;
+		return segments[hash & (segments.length - 1)];
+	}
+
+	/**
+	 * A least-recently-used map of lengths to quotes, which must only be
+	 * accessed while holding its lock.
+	 */
+	private class Segment extends LinkedHashMap<Long, BigDecimal> {
+
+		private static final long serialVersionUID = 2941734893476012353L;
+
+		private final int capacity;
+
+		Segment(final int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Long, BigDecimal> eldest) {
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.billing.rule.CostTable;
+import org.seanquinn.redi2.billing.rule.RuleSet;
+import org.seanquinn.redi2.billing.rule.RuleSetRegistry;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.domain.id.RandomReportIdGenerator;
+import org.seanquinn.redi2.domain.id.ReportIdGenerator;
+
+/**
+ * An implementation of the {@link BillingService} which bills large batches
+ * of {@link Engagement engagements} in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * A batch is split in halves until each part holds no more than the
+ * threshold number of engagements, and each part is billed on its own
+ * worker. Reports are returned in the same order as the engagements they
+ * were produced for and, as with {@link BillingServiceImpl}, an engagement
+ * which cannot be processed is rejected and skipped, and the whole batch is
+ * billed by the rule set active when it began.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class ParallelBillingServiceImpl extends BillingServiceImpl {
+
+	/**
+	 * The default number of engagements below which a batch (or part of one)
+	 * is billed serially.
+	 */
+	public static final int DEFAULT_THRESHOLD = 4096;
+
+	private final ForkJoinPool pool;
+
+	private final int threshold;
+
+	/**
+	 * Instantiates a new parallel billing service which bills on the common
+	 * {@link ForkJoinPool}.
+	 */
+	public ParallelBillingServiceImpl() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Instantiates a new parallel billing service which bills on the passed
+	 * {@link ForkJoinPool}.
+	 *
+	 * @param pool the pool.
+	 */
+	public ParallelBillingServiceImpl(final ForkJoinPool pool) {
+		this(pool, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Instantiates a new parallel billing service which bills on the passed
+	 * {@link ForkJoinPool}, splitting batches into parts of no more than
+	 * {@code threshold} engagements.
+	 *
+	 * @param pool the pool.
+	 * @param threshold the number of engagements below which a batch is
+	 * 		billed serially.
+	 */
+	public ParallelBillingServiceImpl(final ForkJoinPool pool, final int threshold) {
+		this(new BillingRuleFactory(), pool, threshold);
+	}
+
+	/**
+	 * Instantiates a new parallel billing service which resolves rules from
+	 * the passed {@link BillingRuleFactory} and bills on the passed
+	 * {@link ForkJoinPool}, splitting batches into parts of no more than
+	 * {@code threshold} engagements.
+	 *
+	 * @param ruleFactory the billing rule factory, shared by every worker.
+	 * @param pool the pool.
+	 * @param threshold the number of engagements below which a batch is
+	 * 		billed serially.
+	 */
+	public ParallelBillingServiceImpl(final BillingRuleFactory ruleFactory, final ForkJoinPool pool,
+			final int threshold) {
+		this(ruleFactory, new RandomReportIdGenerator(), pool, threshold);
+	}
+
+	/**
+	 * Instantiates a new parallel billing service which resolves rules from
+	 * the passed {@link BillingRuleFactory}, generates report IDs with the
+	 * passed {@link ReportIdGenerator}, and bills on the passed
+	 * {@link ForkJoinPool}, splitting batches into parts of no more than
+	 * {@code threshold} engagements.
+	 *
+	 * @param ruleFactory the billing rule factory, shared by every worker.
+	 * @param reportIdGenerator the report ID generator, shared by every
+	 * 		worker.
+	 * @param pool the pool.
+	 * @param threshold the number of engagements below which a batch is
+	 * 		billed serially.
+	 */
+	public ParallelBillingServiceImpl(final BillingRuleFactory ruleFactory,
+			final ReportIdGenerator reportIdGenerator, final ForkJoinPool pool, final int threshold) {
+		super(ruleFactory, reportIdGenerator);
+		this.pool = pool;
+		this.threshold = checkThreshold(threshold);
+	}
+
+	/**
+	 * Instantiates a new parallel billing service which looks up the cost of
+	 * each engagement covered by the passed {@link CostTable} (once it is
+	 * ready), generates report IDs with the passed {@link ReportIdGenerator},
+	 * and bills on the passed {@link ForkJoinPool}, splitting batches into
+	 * parts of no more than {@code threshold} engagements.
+	 *
+	 * @param costTable the cost table, shared by every worker.
+	 * @param reportIdGenerator the report ID generator, shared by every
+	 * 		worker.
+	 * @param pool the pool.
+	 * @param threshold the number of engagements below which a batch is
+	 * 		billed serially.
+	 */
+	public ParallelBillingServiceImpl(final CostTable costTable, final ReportIdGenerator reportIdGenerator,
+			final ForkJoinPool pool, final int threshold) {
+		super(costTable, reportIdGenerator);
+		this.pool = pool;
+		this.threshold = checkThreshold(threshold);
+	}
+
+	/**
+	 * Instantiates a new parallel billing service which bills each batch by
+	 * the rule set active in the passed {@link RuleSetRegistry} when it
+	 * begins, generates report IDs with the passed {@link ReportIdGenerator},
+	 * and bills on the passed {@link ForkJoinPool}, splitting batches into
+	 * parts of no more than {@code threshold} engagements.
+	 *
+	 * @param ruleSets the rule set registry.
+	 * @param reportIdGenerator the report ID generator, shared by every
+	 * 		worker.
+	 * @param pool the pool.
+	 * @param threshold the number of engagements below which a batch is
+	 * 		billed serially.
+	 */
+	public ParallelBillingServiceImpl(final RuleSetRegistry ruleSets, final ReportIdGenerator reportIdGenerator,
+			final ForkJoinPool pool, final int threshold) {
+		super(ruleSets, reportIdGenerator);
+		this.pool = pool;
+		this.threshold = checkThreshold(threshold);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<BillingReport> process(final Collection<Engagement> engagements) {
+		if (engagements.size() <= threshold) {
+			return super.process(engagements);
+		}
+
+		final BillingBatchEvent event = new BillingBatchEvent();
+		event.begin();
+
+		final Engagement[] batch = engagements.toArray(new Engagement[engagements.size()]);
+		getMetrics().onBatch(batch.length);
+		final RuleSet ruleSet = getRuleSets().getRuleSet();
+		final BillingReport[] results = new BillingReport[batch.length];
+		pool.invoke(new BillingTask(ruleSet, batch, results, 0, batch.length));
+
+		final List<BillingReport> reports = new ArrayList<BillingReport>(results.length);
+		for (final BillingReport report : results) {
+			if (report != null) {
+				reports.add(report);
+			}
+		}
+
+		commit(event, batch.length, reports.size(), ruleSet, true);
+		return reports;
+	}
+
+	/**
+	 * Returns the passed threshold, if it is at least one engagement.
+	 *
+	 * @param threshold the threshold.
+	 * @return the threshold.
+	 */
+	private static int checkThreshold(final int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("The threshold must be at least one engagement.");
+		}
+		return threshold;
+	}
+
+	/**
+	 * Returns the {@link ForkJoinPool} on which batches are billed.
+	 *
+	 * @return the pool.
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Returns the number of engagements below which a batch is billed
+	 * serially.
+	 *
+	 * @return the threshold.
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Task which bills the engagements in the range {@code [from, to)} of a
+	 * batch by a rule set, storing each report at the same index of the
+	 * results.
+	 */
+	private class BillingTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -3551254617400930283L;
+
+		private final RuleSet ruleSet;
+		private final Engagement[] batch;
+		private final BillingReport[] results;
+		private final int from;
+		private final int to;
+
+		BillingTask(final RuleSet ruleSet, final Engagement[] batch, final BillingReport[] results, final int from,
+				final int to) {
+			this.ruleSet = ruleSet;
+			this.batch = batch;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= threshold) {
+				for (int i = from; i < to; i++) {
+					results[i] = processQuietly(ruleSet, batch[i], i);
+				}
+				return;
+			}
+
+			final int middle = (from + to) >>> 1;
+			invokeAll(new BillingTask(ruleSet, batch, results, from, middle),
+					new BillingTask(ruleSet, batch, results, middle, to));
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.metrics;
+
+/**
+ * Contract for recording metrics of the billing of engagements; plugged into
+ * a {@code BillingServiceImpl}, which notifies it from every billing thread.
+ * Implementations must therefore be thread-safe, and should be cheap enough
+ * to be invoked once per engagement.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public interface BillingMetrics {
+
+	/**
+	 * Metrics which record nothing; billing services which are passed these
+	 * do not time their work at all.
+	 */
+	BillingMetrics NONE = new BillingMetrics() {
+		public boolean isTimed() {
+			return false;
+		}
+
+		public void onProcessed(final int tier, final int count) {
+		}
+
+		public void onError() {
+		}
+
+		public void onRuleResolved(final long nanos) {
+		}
+
+		public void onCostCalculated(final long nanos) {
+		}
+
+		public void onBatch(final int size) {
+		}
+	};
+
+	/**
+	 * Returns whether the engagement (or run of engagements) about to be
+	 * billed should be timed. Reading the clock costs more than billing an
+	 * engagement, so implementations may time only a sample.
+	 *
+	 * @return <tt>true</tt> if it should be timed; otherwise <tt>false</tt>.
+	 */
+	boolean isTimed();
+
+	/**
+	 * Invoked when engagements have been billed.
+	 *
+	 * @param tier the index of the tier the engagements were billed in.
+	 * @param count the number of engagements.
+	 */
+	void onProcessed(int tier, int count);
+
+	/**
+	 * Invoked when an engagement could not be billed.
+	 */
+	void onError();
+
+	/**
+	 * Invoked when the billing rule of an engagement (or a run of engagements
+	 * in a batch) which was timed has been resolved.
+	 *
+	 * @param nanos the time taken, in nanoseconds.
+	 */
+	void onRuleResolved(long nanos);
+
+	/**
+	 * Invoked when the cost of an engagement (or a run of engagements in a
+	 * batch) which was timed has been calculated or looked up.
+	 *
+	 * @param nanos the time taken, in nanoseconds.
+	 */
+	void onCostCalculated(long nanos);
+
+	/**
+	 * Invoked when a batch of engagements is billed.
+	 *
+	 * @param size the number of engagements in the batch.
+	 */
+	void onBatch(int size);
+}
@@ -0,0 +1,120 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.metrics;
+
+/**
+ * The management interface through which {@link DefaultBillingMetrics} are
+ * published over JMX. Times are in nanoseconds.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public interface BillingMetricsMXBean {
+
+	/**
+	 * Returns the number of engagements billed.
+	 *
+	 * @return the number of engagements billed.
+	 */
+	long getProcessedCount();
+
+	/**
+	 * Returns the number of engagements billed in each tier, by the index of
+	 * the tier.
+	 *
+	 * @return the number of engagements billed in each tier.
+	 */
+	long[] getProcessedCountByTier();
+
+	/**
+	 * Returns the number of engagements which could not be billed.
+	 *
+	 * @return the number of errors.
+	 */
+	long getErrorCount();
+
+	/**
+	 * Returns the number of batches billed.
+	 *
+	 * @return the number of batches.
+	 */
+	long getBatchCount();
+
+	/**
+	 * Returns the mean number of engagements in a batch.
+	 *
+	 * @return the mean batch size.
+	 */
+	double getMeanBatchSize();
+
+	/**
+	 * Returns the greatest number of engagements in a batch.
+	 *
+	 * @return the greatest batch size.
+	 */
+	long getMaxBatchSize();
+
+	/**
+	 * Returns the median time taken to resolve a billing rule.
+	 *
+	 * @return the median time, in nanoseconds.
+	 */
+	long getRuleResolutionNanosP50();
+
+	/**
+	 * Returns the 99th percentile of the time taken to resolve a billing
+	 * rule.
+	 *
+	 * @return the 99th percentile, in nanoseconds.
+	 */
+	long getRuleResolutionNanosP99();
+
+	/**
+	 * Returns the greatest time taken to resolve a billing rule.
+	 *
+	 * @return the greatest time, in nanoseconds.
+	 */
+	long getRuleResolutionNanosMax();
+
+	/**
+	 * Returns the median time taken to calculate a cost.
+	 *
+	 * @return the median time, in nanoseconds.
+	 */
+	long getCostCalculationNanosP50();
+
+	/**
+	 * Returns the 99th percentile of the time taken to calculate a cost.
+	 *
+	 * @return the 99th percentile, in nanoseconds.
+	 */
+	long getCostCalculationNanosP99();
+
+	/**
+	 * Returns the greatest time taken to calculate a cost.
+	 *
+	 * @return the greatest time, in nanoseconds.
+	 */
+	long getCostCalculationNanosMax();
+}
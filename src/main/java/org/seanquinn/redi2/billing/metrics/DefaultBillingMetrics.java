@@ -0,0 +1,318 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The default implementation of the {@link BillingMetrics}, which counts
+ * engagements in {@link LongAdder striped counters} and records times and
+ * batch sizes in {@link Histogram histograms}, so that billing threads do
+ * not contend with one another to record them. Every engagement is counted,
+ * but only one in {@code sampleRate} is timed, by default
+ * {@value #DEFAULT_SAMPLE_RATE}. The metrics may be published over JMX with
+ * {@link #register(String)}.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class DefaultBillingMetrics implements BillingMetrics, BillingMetricsMXBean {
+
+	/** The default number of engagements of which one is timed. */
+	public static final int DEFAULT_SAMPLE_RATE = 64;
+
+	/** The most tiers counted separately; any higher tier is counted in the last. */
+	private static final int MAX_TIERS = 256;
+
+	/** The counter of each tier, created when it is first billed. */
+	private final AtomicReferenceArray<LongAdder> processedByTier = new AtomicReferenceArray<LongAdder>(MAX_TIERS);
+
+	private final LongAdder errors = new LongAdder();
+
+	private final Histogram ruleResolutionNanos = new Histogram();
+
+	private final Histogram costCalculationNanos = new Histogram();
+
+	private final Histogram batchSizes = new Histogram();
+
+	private final int sampleRate;
+
+	/** The name under which the metrics are registered, if they are. */
+	private ObjectName objectName;
+
+	/**
+	 * Instantiates new metrics which time one in
+	 * {@value #DEFAULT_SAMPLE_RATE} engagements.
+	 */
+	public DefaultBillingMetrics() {
+		this(DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Instantiates new metrics which time one in {@code sampleRate}
+	 * engagements, chosen at random.
+	 *
+	 * @param sampleRate the number of engagements of which one is timed; one
+	 * 		times every engagement.
+	 */
+	public DefaultBillingMetrics(final int sampleRate) {
+		if (sampleRate < 1) {
+			throw new IllegalArgumentException("The sample rate must be at least one.");
+		}
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isTimed() {
+		return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onProcessed(final int tier, final int count) {
+		final int index = Math.min(Math.max(tier, 0), MAX_TIERS - 1);
+		LongAdder counter = processedByTier.get(index);
+		if (counter == null) {
+			processedByTier.compareAndSet(index, null, new LongAdder());
+			counter = processedByTier.get(index);
+		}
+		counter.add(count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onError() {
+		errors.increment();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onRuleResolved(final long nanos) {
+		ruleResolutionNanos.record(nanos);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onCostCalculated(final long nanos) {
+		costCalculationNanos.record(nanos);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onBatch(final int size) {
+		batchSizes.record(size);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getProcessedCount() {
+		long count = 0;
+		for (int i = 0; i < MAX_TIERS; i++) {
+			final LongAdder counter = processedByTier.get(i);
+			if (counter != null) {
+				count += counter.sum();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long[] getProcessedCountByTier() {
+		int tiers = 0;
+		for (int i = 0; i < MAX_TIERS; i++) {
+			if (processedByTier.get(i) != null) {
+				tiers = i + 1;
+			}
+		}
+		final long[] counts = new long[tiers];
+		for (int i = 0; i < tiers; i++) {
+			final LongAdder counter = processedByTier.get(i);
+			counts[i] = counter != null ? counter.sum() : 0;
+		}
+		return counts;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getErrorCount() {
+		return errors.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getBatchCount() {
+		return batchSizes.getCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public double getMeanBatchSize() {
+		return batchSizes.getMean();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getMaxBatchSize() {
+		return batchSizes.getMax();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getRuleResolutionNanosP50() {
+		return ruleResolutionNanos.getValueAtPercentile(50);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getRuleResolutionNanosP99() {
+		return ruleResolutionNanos.getValueAtPercentile(99);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getRuleResolutionNanosMax() {
+		return ruleResolutionNanos.getMax();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getCostCalculationNanosP50() {
+		return costCalculationNanos.getValueAtPercentile(50);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getCostCalculationNanosP99() {
+		return costCalculationNanos.getValueAtPercentile(99);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long getCostCalculationNanosMax() {
+		return costCalculationNanos.getMax();
+	}
+
+	/**
+	 * Returns the histogram of the time taken to resolve billing rules.
+	 *
+	 * @return the histogram, in nanoseconds.
+	 */
+	public Histogram getRuleResolutionNanos() {
+		return ruleResolutionNanos;
+	}
+
+	/**
+	 * Returns the histogram of the time taken to calculate costs.
+	 *
+	 * @return the histogram, in nanoseconds.
+	 */
+	public Histogram getCostCalculationNanos() {
+		return costCalculationNanos;
+	}
+
+	/**
+	 * Returns the histogram of the sizes of batches.
+	 *
+	 * @return the histogram.
+	 */
+	public Histogram getBatchSizes() {
+		return batchSizes;
+	}
+
+	/**
+	 * Publishes the metrics over JMX, on the platform MBean server, as
+	 * {@code org.seanquinn.redi2:type=BillingMetrics,name=<name>}.
+	 *
+	 * @param name the name of the metrics.
+	 * @return the name under which they were registered.
+	 * @throws JMException if the metrics cannot be registered.
+	 */
+	public synchronized ObjectName register(final String name) throws JMException {
+		if (objectName != null) {
+			throw new IllegalStateException("The metrics have already been registered as " + objectName + ".");
+		}
+		final ObjectName candidate = new ObjectName("org.seanquinn.redi2:type=BillingMetrics,name="
+				+ ObjectName.quote(name));
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(this, candidate);
+		objectName = candidate;
+		return objectName;
+	}
+
+	/**
+	 * Withdraws the metrics from JMX, if they were registered.
+	 *
+	 * @throws JMException if the metrics cannot be unregistered.
+	 */
+	public synchronized void unregister() throws JMException {
+		if (objectName != null) {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.unregisterMBean(objectName);
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Returns a one-line summary of the metrics.
+	 *
+	 * @return the summary.
+	 */
+	@Override
+	public String toString() {
+		return "processed=" + getProcessedCount() + " (by tier " + Arrays.toString(getProcessedCountByTier())
+				+ "), errors=" + getErrorCount() + ", batches=" + getBatchCount() + " (mean "
+				+ String.format("%.1f", getMeanBatchSize()) + ", max " + getMaxBatchSize() + "), rule resolution p50/p99/max="
+				+ getRuleResolutionNanosP50() + "/" + getRuleResolutionNanosP99() + "/" + getRuleResolutionNanosMax()
+				+ "ns, cost calculation p50/p99/max=" + getCostCalculationNanosP50() + "/" + getCostCalculationNanosP99()
+				+ "/" + getCostCalculationNanosMax() + "ns";
+	}
+}
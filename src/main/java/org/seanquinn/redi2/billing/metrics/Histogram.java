@@ -0,0 +1,180 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * A histogram of non-negative values (such as latencies in nanoseconds)
+ * which may be recorded from many threads at once without contending.
+ * <p>
+ * As with an HDR histogram, values are counted in buckets whose width grows
+ * with their magnitude: values below {@value #SUB_BUCKETS} are counted
+ * exactly, and every power of two above that is divided into
+ * {@value #SUB_BUCKETS} buckets, so any value reported is within 1/
+ * {@value #SUB_BUCKETS} of the value recorded. Each bucket is a
+ * {@link LongAdder}, and so is striped across threads.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class Histogram {
+
+	/** The number of bits of each value by which it is bucketed. */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/** The number of buckets into which each power of two is divided. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Enough buckets for every non-negative {@code long}. */
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder sum = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(new LongBinaryOperator() {
+		public long applyAsLong(final long left, final long right) {
+			return Math.max(left, right);
+		}
+	}, 0);
+
+	/**
+	 * Instantiates a new, empty, histogram.
+	 */
+	public Histogram() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a value; negative values are recorded as zero.
+	 *
+	 * @param value the value.
+	 */
+	public void record(final long value) {
+		final long v = Math.max(value, 0);
+		buckets[bucketOf(v)].increment();
+		count.increment();
+		sum.add(v);
+		max.accumulate(v);
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 *
+	 * @return the count.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Returns the greatest value recorded.
+	 *
+	 * @return the greatest value, or zero if none has been recorded.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the mean of the values recorded.
+	 *
+	 * @return the mean, or zero if none has been recorded.
+	 */
+	public double getMean() {
+		final long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * Returns the value below or at which the passed percentage of the values
+	 * recorded fall; that is, the upper bound of the bucket holding that
+	 * value, or the greatest value recorded if that is lower.
+	 *
+	 * @param percentile the percentile, from 0 to 100.
+	 * @return the value at the percentile, or zero if none has been recorded.
+	 */
+	public long getValueAtPercentile(final double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("A percentile must be between 0 and 100, not " + percentile + ".");
+		}
+		final long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Returns the index of the bucket in which the passed value is counted.
+	 *
+	 * @param value the value, which must not be negative.
+	 * @return the index of the bucket.
+	 */
+	static int bucketOf(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = magnitude - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	/**
+	 * Returns the greatest value counted in the bucket of the passed index.
+	 *
+	 * @param bucket the index of the bucket.
+	 * @return the greatest value.
+	 */
+	static long highestValueOf(final int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final int shift = bucket / SUB_BUCKETS - 1;
+		final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,186 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rejection;
+
+import org.seanquinn.redi2.domain.Engagement;
+
+/**
+ * An input which was rejected rather than billed: the reason, where it
+ * appeared, and the input itself. Rejections are plain values, so recording
+ * one costs no more than its allocation; no exception (and so no stack
+ * trace) is created for an input which is simply invalid.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public final class Rejection {
+
+	private final RejectionReason reason;
+
+	private final String source;
+
+	private final long position;
+
+	private final Engagement engagement;
+
+	private final String line;
+
+	private final String detail;
+
+	/**
+	 * Instantiates a new rejection of an {@link Engagement}.
+	 *
+	 * @param reason the reason it was rejected.
+	 * @param position the zero-based position of the engagement in the batch
+	 * 		(or stream) it was passed in, or -1 if it is not known.
+	 * @param engagement the engagement.
+	 */
+	public Rejection(final RejectionReason reason, final long position, final Engagement engagement) {
+		this(reason, null, position, engagement, null, null);
+	}
+
+	/**
+	 * Instantiates a new rejection of an {@link Engagement} whose billing
+	 * failed unexpectedly.
+	 *
+	 * @param reason the reason it was rejected.
+	 * @param position the zero-based position of the engagement in the batch
+	 * 		(or stream) it was passed in, or -1 if it is not known.
+	 * @param engagement the engagement.
+	 * @param detail a description of the failure.
+	 */
+	public Rejection(final RejectionReason reason, final long position, final Engagement engagement,
+			final String detail) {
+		this(reason, null, position, engagement, null, detail);
+	}
+
+	/**
+	 * Instantiates a new rejection of an {@link Engagement} which was read
+	 * from a file.
+	 *
+	 * @param reason the reason it was rejected.
+	 * @param source the path to the file.
+	 * @param position the zero-based position of the engagement in the file;
+	 * 		the line of a file of minutes, or the record of a binary file.
+	 * @param engagement the engagement.
+	 */
+	public Rejection(final RejectionReason reason, final String source, final long position,
+			final Engagement engagement) {
+		this(reason, source, position, engagement, null, null);
+	}
+
+	/**
+	 * Instantiates a new rejection of a line of a file.
+	 *
+	 * @param reason the reason it was rejected.
+	 * @param source the path to the file.
+	 * @param position the zero-based index of the line in the file.
+	 * @param line the line, as it appeared in the file.
+	 */
+	public Rejection(final RejectionReason reason, final String source, final long position, final String line) {
+		this(reason, source, position, null, line, null);
+	}
+
+	private Rejection(final RejectionReason reason, final String source, final long position,
+			final Engagement engagement, final String line, final String detail) {
+		this.reason = reason;
+		this.source = source;
+		this.position = position;
+		this.engagement = engagement;
+		this.line = line;
+		this.detail = detail;
+	}
+
+	/**
+	 * Returns the reason the input was rejected.
+	 *
+	 * @return the reason.
+	 */
+	public RejectionReason getReason() {
+		return reason;
+	}
+
+	/**
+	 * Returns the path to the file in which the input appeared.
+	 *
+	 * @return the path, or {@code null} if it is not known.
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the zero-based position of the input in the batch, stream or
+	 * file in which it appeared.
+	 *
+	 * @return the position, or -1 if it is not known.
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Returns the engagement which was rejected, if it was an engagement.
+	 *
+	 * @return the engagement, or {@code null}.
+	 */
+	public Engagement getEngagement() {
+		return engagement;
+	}
+
+	/**
+	 * Returns the line which was rejected, if it was a line of a file.
+	 *
+	 * @return the line, or {@code null}.
+	 */
+	public String getLine() {
+		return line;
+	}
+
+	/**
+	 * Returns a description of the failure, if billing failed unexpectedly.
+	 *
+	 * @return the description, or {@code null}.
+	 */
+	public String getDetail() {
+		return detail;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(reason);
+		if (source != null) {
+			builder.append(" in ").append(source);
+		}
+		if (position >= 0) {
+			builder.append(" at ").append(position);
+		}
+		builder.append(": ").append(engagement != null ? engagement : "\"" + line + "\"");
+		if (detail != null) {
+			builder.append(" (").append(detail).append(')');
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,167 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rejection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link RejectionSink} which counts every rejection by its
+ * {@link RejectionReason}, and keeps the first few of each reason as a
+ * sample; so that however many inputs are rejected, the sink holds a bounded
+ * number of them and nothing is written as they arrive. Counting and
+ * sampling are lock-free.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class SamplingRejectionSink implements RejectionSink {
+
+	/** The default number of rejections of each reason kept as a sample. */
+	public static final int DEFAULT_SAMPLE_SIZE = 10;
+
+	private final int sampleSize;
+
+	private final LongAdder[] counts;
+
+	private final AtomicInteger[] sampled;
+
+	private final List<AtomicReferenceArray<Rejection>> samples;
+
+	/**
+	 * Instantiates a new sink which keeps the first
+	 * {@value #DEFAULT_SAMPLE_SIZE} rejections of each reason.
+	 */
+	public SamplingRejectionSink() {
+		this(DEFAULT_SAMPLE_SIZE);
+	}
+
+	/**
+	 * Instantiates a new sink which keeps the first {@code sampleSize}
+	 * rejections of each reason.
+	 *
+	 * @param sampleSize the number of rejections of each reason to keep.
+	 */
+	public SamplingRejectionSink(final int sampleSize) {
+		if (sampleSize < 0) {
+			throw new IllegalArgumentException("The sample size must not be negative.");
+		}
+		this.sampleSize = sampleSize;
+
+		final int reasons = RejectionReason.values().length;
+		this.counts = new LongAdder[reasons];
+		this.sampled = new AtomicInteger[reasons];
+		this.samples = new ArrayList<AtomicReferenceArray<Rejection>>(reasons);
+		for (int i = 0; i < reasons; i++) {
+			counts[i] = new LongAdder();
+			sampled[i] = new AtomicInteger();
+			samples.add(new AtomicReferenceArray<Rejection>(sampleSize));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void reject(final Rejection rejection) {
+		final int reason = rejection.getReason().ordinal();
+		counts[reason].increment();
+
+		// ** Once the sample is full, rejections are only counted.
+		if (sampled[reason].get() < sampleSize) {
+			final int index = sampled[reason].getAndIncrement();
+			if (index < sampleSize) {
+				samples.get(reason).set(index, rejection);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of inputs rejected.
+	 *
+	 * @return the number of rejections.
+	 */
+	public long getCount() {
+		long count = 0;
+		for (final LongAdder adder : counts) {
+			count += adder.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of inputs rejected for the passed reason.
+	 *
+	 * @param reason the reason.
+	 * @return the number of rejections.
+	 */
+	public long getCount(final RejectionReason reason) {
+		return counts[reason.ordinal()].sum();
+	}
+
+	/**
+	 * Returns the sample of the inputs rejected for the passed reason; the
+	 * first of them, in the order they were recorded.
+	 *
+	 * @param reason the reason.
+	 * @return the sample.
+	 */
+	public List<Rejection> getSamples(final RejectionReason reason) {
+		final AtomicReferenceArray<Rejection> sample = samples.get(reason.ordinal());
+		final List<Rejection> rejections = new ArrayList<Rejection>();
+		for (int i = 0; i < sample.length(); i++) {
+			final Rejection rejection = sample.get(i);
+			if (rejection != null) {
+				rejections.add(rejection);
+			}
+		}
+		return Collections.unmodifiableList(rejections);
+	}
+
+	/**
+	 * Returns a one-line summary of the number of rejections of each reason.
+	 *
+	 * @return the summary.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(getCount()).append(" rejected");
+		String separator = " (";
+		for (final RejectionReason reason : RejectionReason.values()) {
+			final long count = getCount(reason);
+			if (count > 0) {
+				builder.append(separator).append(reason).append('=').append(count);
+				separator = ", ";
+			}
+		}
+		if (separator.equals(", ")) {
+			builder.append(')');
+		}
+		return builder.toString();
+	}
+}
@@ -26,6 +26,7 @@ package org.seanquinn.redi2.billing.rule;
 import java.math.BigDecimal;
 
 import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.CurrencyUtils;
 
 /**
  * A contract for billing rules.
@@ -43,6 +44,43 @@ public interface BillingRule {
 	 */
 	BigDecimal calculateCost(Engagement engagement);
 
+	/**
+	 * Calculates the cost of an engagement of the passed length, in whole
+	 * cents. The result is the same as that of
+	 * {@link #calculateCost(Engagement)}.
+	 * <p>
+	 * By default, the cost is calculated by
+	 * {@link #calculateCost(Engagement)} and converted to cents, so that
+	 * rules written before this method existed still work; implementations
+	 * should override it to compute the cost without allocating.
+	 * </p>
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @return the cost, in cents.
+	 */
+	default long calculateCostInCents(final long lengthMs) {
+		return CurrencyUtils.toCents(calculateCost(new Engagement(lengthMs)));
+	}
+
+	/**
+	 * Calculates the cost, in whole cents, of each engagement in the range
+	 * {@code [from, to)} of the passed lengths, storing each cost at the same
+	 * index of {@code outCents}. Each cost is the same as that returned by
+	 * {@link #calculateCostInCents(long)} for the length, which by default is
+	 * invoked for each in turn.
+	 *
+	 * @param lengthsMs the lengths of the engagements, in milliseconds.
+	 * @param from the index of the first engagement.
+	 * @param to the index after the last engagement.
+	 * @param outCents the array into which the costs are stored.
+	 */
+	default void calculateCostsInCents(final long[] lengthsMs, final int from, final int to,
+			final long[] outCents) {
+		for (int i = from; i < to; i++) {
+			outCents[i] = calculateCostInCents(lengthsMs[i]);
+		}
+	}
+
 	/**
 	 * Returns the rate at which an {@link Engagement} following this rule will
 	 * be billed.
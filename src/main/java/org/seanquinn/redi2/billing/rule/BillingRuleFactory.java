@@ -23,25 +23,62 @@
  */
 package org.seanquinn.redi2.billing.rule;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jdk.jfr.EventType;
+
 import org.seanquinn.redi2.billing.discount.DigitAdditiveDiscountCalculator;
+import org.seanquinn.redi2.billing.discount.DiscountCalculator;
+import org.seanquinn.redi2.billing.discount.MemoizingDiscountCalculator;
 import org.seanquinn.redi2.billing.discount.SquareRootDiscountCalculator;
 import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.TimeUtils;
 
 /**
  * Factory which will produce {@link BillingRule BillingRules} according to the
  * length of an engagement.
+ * <p>
+ * Engagements are divided into {@link BillingTier tiers} by their length in
+ * minutes; by default, short engagements (under 1000 minutes), medium
+ * engagements (under 100000 minutes) and long engagements, although any
+ * number of tiers may be passed, or {@link BillingTierLoader loaded} from a
+ * file. The tiers are compiled into a sorted array of thresholds and an array
+ * of their rules, so the rule of an engagement is found by a binary search
+ * however many tiers there are.
+ * </p>
+ * <p>
+ * The factory and the rules it produces are immutable and thread-safe, so a
+ * single factory should be created up front and shared by every engagement
+ * (and every thread) that is billed, rather than created per engagement.
+ * </p>
  *
  * @author Sean.Quinn
  * @since 1.0
  */
 public class BillingRuleFactory {
 
-	private final double shortEngagementThreshold;
-	private final double mediumEngagementThreshold;
+	/**
+	 * The type of the {@link RuleSelectionEvent}; checked before sampling a
+	 * selection, so that nothing more is done unless it is being recorded.
+	 */
+	private static final EventType SELECTION_EVENTS = EventType.getEventType(RuleSelectionEvent.class);
+
+	private final List<BillingTier> tiers;
+
+	/**
+	 * The number of minutes from which each tier but the first applies, in
+	 * ascending order; an engagement belongs to the tier whose index is the
+	 * number of thresholds it has reached.
+	 */
+	private final double[] thresholds;
 
-	private final BillingRule shortEngagementBillingRule;
-	private final BillingRule mediumEngagementBillingRule;
-	private final BillingRule longEngagementBillingRule;
+	/** The rule of each tier, in the same order as the tiers. */
+	private final BillingRule[] rules;
 
 	/**
 	 * Instantiates a new billing rule factory.
@@ -52,14 +89,54 @@ public class BillingRuleFactory {
 	 * more robust implementation of this code.
 	 */
 	public BillingRuleFactory() {
-		this.shortEngagementThreshold = 1000.0;
-		this.mediumEngagementThreshold = 100000.0;
-
-		this.shortEngagementBillingRule = new DynamicDiscountBillingRule(
-				new DigitAdditiveDiscountCalculator(), 2.0, 12.0);
-		this.mediumEngagementBillingRule = new DynamicDiscountBillingRule(
-				new SquareRootDiscountCalculator(), 3.4, 6.0);
-		this.longEngagementBillingRule = new DynamicBillingRule(0.6);
+		this(getDefaultTiers());
+	}
+
+	/**
+	 * Instantiates a new billing rule factory which bills engagements by the
+	 * passed tiers, in any order. Exactly one tier must start from zero
+	 * minutes, and no two tiers may start from the same number of minutes.
+	 *
+	 * @param tiers the tiers.
+	 */
+	public BillingRuleFactory(final List<BillingTier> tiers) {
+		final List<BillingTier> sorted = new ArrayList<BillingTier>(tiers);
+		Collections.sort(sorted, new Comparator<BillingTier>() {
+			public int compare(final BillingTier a, final BillingTier b) {
+				return Double.compare(a.getFromMinutes(), b.getFromMinutes());
+			}
+		});
+		if (sorted.isEmpty() || sorted.get(0).getFromMinutes() != 0.0) {
+			throw new IllegalArgumentException("A tier must start from zero minutes.");
+		}
+
+		this.tiers = Collections.unmodifiableList(sorted);
+		this.thresholds = new double[sorted.size() - 1];
+		this.rules = new BillingRule[sorted.size()];
+		for (int i = 0; i < sorted.size(); i++) {
+			rules[i] = sorted.get(i).getRule();
+			if (i > 0) {
+				thresholds[i - 1] = sorted.get(i).getFromMinutes();
+				if (thresholds[i - 1] == sorted.get(i - 1).getFromMinutes()) {
+					throw new IllegalArgumentException("More than one tier starts from "
+							+ thresholds[i - 1] + " minutes.");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the default tiers: short engagements, which are discounted by
+	 * the sum of their digits; medium engagements, which are discounted by
+	 * the square root of their hours; and long engagements.
+	 *
+	 * @return the default tiers.
+	 */
+	private static List<BillingTier> getDefaultTiers() {
+		return Arrays.asList(
+				new BillingTier(0.0, 2.0, 12.0, new DigitAdditiveDiscountCalculator()),
+				new BillingTier(1000.0, 3.4, 6.0, new SquareRootDiscountCalculator()),
+				new BillingTier(100000.0, 0.6, 1.0, null));
 	}
 
 	/**
@@ -69,67 +146,126 @@ public class BillingRuleFactory {
 	 * @return the {@code BillingRule} for the {@code Engagement}.
 	 */
 	public BillingRule getRule(final Engagement engagement) {
-		if (isShortEngagement(engagement)) {
-			return shortEngagementBillingRule;
+		return getRule(engagement.getLengthMs());
+	}
+
+	/**
+	 * Returns the {@link BillingRule} for an engagement of the passed length.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @return the {@code BillingRule} for the engagement.
+	 */
+	public BillingRule getRule(final long lengthMs) {
+		final int tier = getTier(lengthMs);
+		if (SELECTION_EVENTS.isEnabled()
+				&& ThreadLocalRandom.current().nextInt(RuleSelectionEvent.SAMPLE_RATE) == 0) {
+			recordSelection(lengthMs, tier);
 		}
-		else if (isMediumEngagement(engagement)) {
-			return mediumEngagementBillingRule;
+		return rules[tier];
+	}
+
+	/**
+	 * Records a {@link RuleSelectionEvent} for the selection of the rule of
+	 * the passed tier.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @param tier the index of the tier.
+	 */
+	private void recordSelection(final long lengthMs, final int tier) {
+		final RuleSelectionEvent event = new RuleSelectionEvent();
+		event.lengthMs = lengthMs;
+		event.tier = tier;
+		event.tierCount = rules.length;
+		event.commit();
+	}
+
+	/**
+	 * Returns the tier of an engagement of the passed length, as the index
+	 * of the tier in ascending order of minutes; by default, {@code 0} for a
+	 * short engagement, {@code 1} for a medium engagement, and {@code 2} for
+	 * a long engagement.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @return the tier of the engagement.
+	 */
+	public int getTier(final long lengthMs) {
+		final double minutes = TimeUtils.toMinutes(lengthMs);
+
+		// ** The number of thresholds reached, i.e. the first above the minutes.
+		int low = 0;
+		int high = thresholds.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (thresholds[middle] <= minutes) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
 		}
-		return longEngagementBillingRule;
+		return low;
 	}
 
 	/**
-	 * Return <tt>true</tt> if the {@link Engagement} is a short engagement.
+	 * Returns the number of tiers into which engagements are divided.
 	 *
-	 * @param engagement the {@code Engagement}.
-	 * @return <tt>true</tt> if the {@code Engagement} is a short engagement;
-	 * 		otherwise <tt>false</tt>.
+	 * @return the number of tiers.
 	 */
-	private boolean isShortEngagement(final Engagement engagement) {
-		final double minutes = engagement.getMinutes();
-		return minutes < getShortEngagementThreshold();
+	public int getTierCount() {
+		return rules.length;
 	}
 
 	/**
-	 * Return <tt>true</tt> if the {@link Engagement} is a medium engagement.
+	 * Returns the tiers, in ascending order of minutes.
 	 *
-	 * @param engagement the {@code Engagement}.
-	 * @return <tt>true</tt> if the {@code Engagement} is a medium engagement;
-	 * 		otherwise <tt>false</tt>.
+	 * @return the tiers.
 	 */
-	private boolean isMediumEngagement(final Engagement engagement) {
-		final double minutes = engagement.getMinutes();
-		return minutes >= getShortEngagementThreshold() && minutes < getMediumEngagementThreshold();
+	public List<BillingTier> getTiers() {
+		return tiers;
 	}
 
 	/**
-	 * Return <tt>true</tt> if the {@link Engagement} is a long engagement.
+	 * Returns the memoizing calculator of medium engagement discounts, e.g.
+	 * for its hit and miss counts; or {@code null} if the second tier's
+	 * discounts are not memoized, as they are not by default.
 	 *
-	 * @param engagement the {@code Engagement}.
-	 * @return <tt>true</tt> if the {@code Engagement} is a long engagement;
-	 * 		otherwise <tt>false</tt>.
+	 * @return the medium engagement discount calculator, or {@code null}.
 	 */
-	private boolean isLongEngagement(final Engagement engagement) {
-		// Unused method, but here for completeness.
-		final double minutes = engagement.getMinutes();
-		return minutes >= getMediumEngagementThreshold();
+	public MemoizingDiscountCalculator getMediumEngagementDiscountCalculator() {
+		if (tiers.size() < 2) {
+			return null;
+		}
+		final DiscountCalculator calculator = tiers.get(1).getDiscountCalculator();
+		return calculator instanceof MemoizingDiscountCalculator ? (MemoizingDiscountCalculator) calculator : null;
 	}
 
 	/**
-	 * Returns the medium engagement threshold, in minutes.
+	 * Returns the medium engagement threshold, in minutes; that is, the
+	 * number of minutes from which the third tier applies, if there is one.
 	 *
 	 * @return the medium engagement threshold, in minutes.
 	 */
 	public double getMediumEngagementThreshold() {
-		return mediumEngagementThreshold;
+		return thresholds.length > 1 ? thresholds[1] : Double.POSITIVE_INFINITY;
 	}
 
 	/**
-	 * Returns the short engagement threshold, in minutes.
+	 * Returns the short engagement threshold, in minutes; that is, the number
+	 * of minutes from which the second tier applies, if there is one.
 	 *
 	 * @return the short engagement threshold, in minutes.
 	 */
 	public double getShortEngagementThreshold() {
-		return shortEngagementThreshold;
+		return thresholds.length > 0 ? thresholds[0] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns the number of minutes from which the last tier applies; below
+	 * it, engagements are billed by the other tiers.
+	 *
+	 * @return the highest threshold, in minutes.
+	 */
+	public double getHighestThreshold() {
+		return thresholds.length > 0 ? thresholds[thresholds.length - 1] : 0.0;
 	}
 }
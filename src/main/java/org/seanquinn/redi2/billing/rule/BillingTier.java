@@ -0,0 +1,130 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import org.seanquinn.redi2.billing.discount.DiscountCalculator;
+
+/**
+ * A tier of engagements, from a number of minutes up to the next tier, and
+ * the terms on which they are billed: a rate, a time adjustment factor and,
+ * optionally, a discount.
+ * <p>
+ * Tiers are immutable; each compiles its terms into the {@link BillingRule}
+ * that bills its engagements when it is created.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class BillingTier {
+
+	private final double fromMinutes;
+
+	private final double rate;
+
+	private final double timeAdjustmentFactor;
+
+	private final DiscountCalculator discountCalculator;
+
+	private final BillingRule rule;
+
+	/**
+	 * Instantiates a new tier of engagements of at least {@code fromMinutes}
+	 * minutes, billed at the passed rate and time adjustment factor, less the
+	 * discount of the passed {@link DiscountCalculator}, if any.
+	 *
+	 * @param fromMinutes the least number of minutes of an engagement of the
+	 * 		tier.
+	 * @param rate the rate at which engagements are billed.
+	 * @param timeAdjustmentFactor the factor by which time is adjusted.
+	 * @param discountCalculator the discount calculator, or {@code null}.
+	 */
+	public BillingTier(final double fromMinutes, final double rate, final double timeAdjustmentFactor,
+			final DiscountCalculator discountCalculator) {
+		if (Double.isNaN(fromMinutes) || fromMinutes < 0) {
+			throw new IllegalArgumentException("A tier must start at a non-negative number of minutes.");
+		}
+		this.fromMinutes = fromMinutes;
+		this.rate = rate;
+		this.timeAdjustmentFactor = timeAdjustmentFactor;
+		this.discountCalculator = discountCalculator;
+		this.rule = discountCalculator != null
+				? new DynamicDiscountBillingRule(discountCalculator, rate, timeAdjustmentFactor)
+				: new DynamicBillingRule(rate, timeAdjustmentFactor);
+	}
+
+	/**
+	 * Returns the least number of minutes of an engagement of this tier.
+	 *
+	 * @return the number of minutes.
+	 */
+	public double getFromMinutes() {
+		return fromMinutes;
+	}
+
+	/**
+	 * Returns the rate at which engagements are billed.
+	 *
+	 * @return the rate.
+	 */
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Returns the factor by which time is adjusted.
+	 *
+	 * @return the time adjustment factor.
+	 */
+	public double getTimeAdjustmentFactor() {
+		return timeAdjustmentFactor;
+	}
+
+	/**
+	 * Returns the calculator of the discount of engagements, if any.
+	 *
+	 * @return the discount calculator, or {@code null}.
+	 */
+	public DiscountCalculator getDiscountCalculator() {
+		return discountCalculator;
+	}
+
+	/**
+	 * Returns the {@link BillingRule} which bills engagements of this tier.
+	 *
+	 * @return the billing rule.
+	 */
+	public BillingRule getRule() {
+		return rule;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "BillingTier [fromMinutes=" + fromMinutes + ", rate=" + rate + ", timeAdjustmentFactor="
+				+ timeAdjustmentFactor + ", discountCalculator=" + discountCalculator + "]";
+	}
+}
@@ -0,0 +1,183 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.seanquinn.redi2.billing.discount.DigitAdditiveDiscountCalculator;
+import org.seanquinn.redi2.billing.discount.DiscountCalculator;
+import org.seanquinn.redi2.billing.discount.MemoizingDiscountCalculator;
+import org.seanquinn.redi2.billing.discount.SquareRootDiscountCalculator;
+
+/**
+ * Loads {@link BillingTier billing tiers} from a properties file, in which
+ * the properties of each tier share a prefix of {@code tier.<name>.}:
+ * <pre>
+ * tier.short.rate=2.0
+ * tier.short.factor=12.0
+ * tier.short.discount=digit-additive
+ *
+ * tier.medium.from=1000
+ * tier.medium.rate=3.4
+ * tier.medium.factor=6.0
+ * tier.medium.discount=square-root
+ * tier.medium.memoize=true
+ *
+ * tier.long.from=100000
+ * tier.long.rate=0.6
+ * </pre>
+ * <p>
+ * Only the {@code rate} of a tier is required. A tier applies {@code from}
+ * zero minutes, with a time adjustment {@code factor} of one and no
+ * {@code discount}, unless stated otherwise. A discount is one of
+ * {@code none}, {@code digit-additive} or {@code square-root}, or the class
+ * name of a {@link DiscountCalculator} with a no-argument constructor; its
+ * discounts are remembered if {@code memoize} is {@code true}. The names of
+ * the tiers are only used to group their properties; tiers are ordered by the
+ * number of minutes from which they apply.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public final class BillingTierLoader {
+
+	private static final String PREFIX = "tier.";
+
+	private BillingTierLoader() {
+	}
+
+	/**
+	 * Loads the tiers from the properties file at the passed path, and
+	 * returns a {@link BillingRuleFactory} which bills by them.
+	 *
+	 * @param path the path to the file.
+	 * @return the billing rule factory.
+	 * @throws java.io.FileNotFoundException if the file does not exist.
+	 * @throws IOException if the file cannot be read.
+	 * @throws IllegalArgumentException if the tiers are not valid.
+	 */
+	public static BillingRuleFactory load(final String path) throws IOException {
+		final Properties properties = new Properties();
+		final InputStream in = new FileInputStream(path);
+		try {
+			properties.load(in);
+		}
+		finally {
+			in.close();
+		}
+		return new BillingRuleFactory(parse(properties));
+	}
+
+	/**
+	 * Returns the tiers described by the passed properties, in no particular
+	 * order.
+	 *
+	 * @param properties the properties.
+	 * @return the tiers.
+	 * @throws IllegalArgumentException if a property is not recognised, or
+	 * 		its value is not valid.
+	 */
+	public static List<BillingTier> parse(final Properties properties) {
+		final Map<String, Properties> tiers = new LinkedHashMap<String, Properties>();
+		for (final String key : properties.stringPropertyNames()) {
+			final int dot = key.lastIndexOf('.');
+			if (!key.startsWith(PREFIX) || dot <= PREFIX.length()) {
+				throw new IllegalArgumentException("Unrecognised tier property: " + key);
+			}
+			final String name = key.substring(PREFIX.length(), dot);
+			Properties tier = tiers.get(name);
+			if (tier == null) {
+				tier = new Properties();
+				tiers.put(name, tier);
+			}
+			tier.setProperty(key.substring(dot + 1), properties.getProperty(key).trim());
+		}
+
+		final List<BillingTier> result = new ArrayList<BillingTier>(tiers.size());
+		for (final Map.Entry<String, Properties> tier : tiers.entrySet()) {
+			result.add(parseTier(tier.getKey(), tier.getValue()));
+		}
+		return result;
+	}
+
+	private static BillingTier parseTier(final String name, final Properties tier) {
+		for (final String property : tier.stringPropertyNames()) {
+			if (!"from".equals(property) && !"rate".equals(property) && !"factor".equals(property)
+					&& !"discount".equals(property) && !"memoize".equals(property)) {
+				throw new IllegalArgumentException("Unrecognised tier property: " + PREFIX + name + "." + property);
+			}
+		}
+		if (tier.getProperty("rate") == null) {
+			throw new IllegalArgumentException("Tier " + name + " has no rate.");
+		}
+
+		DiscountCalculator discountCalculator = parseDiscount(name, tier.getProperty("discount", "none"));
+		if (discountCalculator != null && Boolean.parseBoolean(tier.getProperty("memoize"))) {
+			discountCalculator = new MemoizingDiscountCalculator(discountCalculator);
+		}
+		return new BillingTier(parseNumber(name, tier, "from", 0.0), parseNumber(name, tier, "rate", 0.0),
+				parseNumber(name, tier, "factor", 1.0), discountCalculator);
+	}
+
+	private static double parseNumber(final String name, final Properties tier, final String property,
+			final double defaultValue) {
+		final String value = tier.getProperty(property);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value);
+		}
+		catch (final NumberFormatException ex) {
+			throw new IllegalArgumentException(PREFIX + name + "." + property + " is not a number: " + value);
+		}
+	}
+
+	private static DiscountCalculator parseDiscount(final String name, final String discount) {
+		if ("none".equals(discount)) {
+			return null;
+		}
+		else if ("digit-additive".equals(discount)) {
+			return new DigitAdditiveDiscountCalculator();
+		}
+		else if ("square-root".equals(discount)) {
+			return new SquareRootDiscountCalculator();
+		}
+
+		try {
+			return Class.forName(discount).asSubclass(DiscountCalculator.class).getDeclaredConstructor().newInstance();
+		}
+		catch (final Exception ex) {
+			throw new IllegalArgumentException("Unknown discount of tier " + name + ": " + discount, ex);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import org.seanquinn.redi2.utils.TimeUtils;
+
+/**
+ * A precomputed table of the cost, in cents, of every engagement of a whole
+ * number of minutes below a limit (by default, the highest tier threshold,
+ * up to {@value #MAX_DEFAULT_MINUTES} minutes), as billed by the rules of a
+ * {@link BillingRuleFactory}.
+ * <p>
+ * Only engagements of a whole number of minutes are covered: the medium
+ * engagement discount depends on the fractional number of hours, so the
+ * cost of an engagement of a few extra milliseconds may differ from that of
+ * the whole minute, and must be computed by its rule.
+ * </p>
+ * <p>
+ * The table is empty until it has been {@link #build() built}, which may be
+ * done up front or {@link #buildInBackground() in the background}; callers
+ * should check {@link #isReady()} and compute costs through the rules until
+ * it is. Once built, the table is immutable and may be shared by any number
+ * of threads.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class CostTable {
+
+	/** The most minutes covered by a table sized by default; 8MB of costs. */
+	public static final int MAX_DEFAULT_MINUTES = 1 << 20;
+
+	private final BillingRuleFactory ruleFactory;
+
+	private final int minutes;
+
+	/**
+	 * The cost of an engagement of each number of minutes, in cents; or
+	 * {@code null} until the table has been built.
+	 */
+	private volatile long[] costs;
+
+	/**
+	 * Instantiates a new, unbuilt, table of the costs of engagements below
+	 * the highest threshold of the passed {@link BillingRuleFactory}, or
+	 * below {@value #MAX_DEFAULT_MINUTES} minutes if that is lower.
+	 *
+	 * @param ruleFactory the billing rule factory.
+	 */
+	public CostTable(final BillingRuleFactory ruleFactory) {
+		this(ruleFactory, (int) Math.min(Math.ceil(ruleFactory.getHighestThreshold()), MAX_DEFAULT_MINUTES));
+	}
+
+	/**
+	 * Instantiates a new, unbuilt, table of the costs of engagements of less
+	 * than {@code minutes} minutes, as billed by the rules of the passed
+	 * {@link BillingRuleFactory}.
+	 *
+	 * @param ruleFactory the billing rule factory.
+	 * @param minutes the number of minutes covered by the table.
+	 */
+	public CostTable(final BillingRuleFactory ruleFactory, final int minutes) {
+		if (minutes < 0) {
+			throw new IllegalArgumentException("A cost table cannot cover a negative number of minutes.");
+		}
+		this.ruleFactory = ruleFactory;
+		this.minutes = minutes;
+	}
+
+	/**
+	 * Builds the table, if it has not been already, by billing an engagement
+	 * of each number of minutes that it covers.
+	 */
+	public synchronized void build() {
+		if (costs != null) {
+			return;
+		}
+
+		final long[] table = new long[minutes];
+		for (int i = 0; i < minutes; i++) {
+			final long lengthMs = i * TimeUtils.ONE_MINUTE_MS;
+			table[i] = ruleFactory.getRule(lengthMs).calculateCostInCents(lengthMs);
+		}
+		costs = table;
+	}
+
+	/**
+	 * Builds the table on a new daemon thread, returning immediately.
+	 */
+	public void buildInBackground() {
+		final Thread builder = new Thread(new Runnable() {
+			public void run() {
+				build();
+			}
+		}, "redi2-cost-table");
+		builder.setDaemon(true);
+		builder.start();
+	}
+
+	/**
+	 * Returns <tt>true</tt> if the table has been built.
+	 *
+	 * @return <tt>true</tt> if the table has been built; otherwise
+	 * 		<tt>false</tt>.
+	 */
+	public boolean isReady() {
+		return costs != null;
+	}
+
+	/**
+	 * Returns <tt>true</tt> if the table covers engagements of the passed
+	 * length; that is, if it is a whole number of minutes below the limit of
+	 * the table. Whether the table has been built is not considered.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @return <tt>true</tt> if the table covers the length; otherwise
+	 * 		<tt>false</tt>.
+	 */
+	public boolean covers(final long lengthMs) {
+		return lengthMs >= 0 && lengthMs % TimeUtils.ONE_MINUTE_MS == 0
+				&& lengthMs / TimeUtils.ONE_MINUTE_MS < minutes;
+	}
+
+	/**
+	 * Returns the cost of an engagement of the passed length, which must be
+	 * covered by the table.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @return the cost, in cents.
+	 * @throws IllegalStateException if the table has not been built.
+	 */
+	public long getCostInCents(final long lengthMs) {
+		return getCosts()[(int) (lengthMs / TimeUtils.ONE_MINUTE_MS)];
+	}
+
+	/**
+	 * Looks up the cost of each engagement in the range {@code [from, to)} of
+	 * the passed lengths, each of which must be covered by the table, storing
+	 * each cost at the same index of {@code outCents}.
+	 *
+	 * @param lengthsMs the lengths of the engagements, in milliseconds.
+	 * @param from the index of the first engagement.
+	 * @param to the index after the last engagement.
+	 * @param outCents the array into which the costs are stored.
+	 * @throws IllegalStateException if the table has not been built.
+	 */
+	public void getCostsInCents(final long[] lengthsMs, final int from, final int to, final long[] outCents) {
+		final long[] table = getCosts();
+		for (int i = from; i < to; i++) {
+			outCents[i] = table[(int) (lengthsMs[i] / TimeUtils.ONE_MINUTE_MS)];
+		}
+	}
+
+	/**
+	 * Returns the {@link BillingRuleFactory} whose rules the table was built
+	 * from.
+	 *
+	 * @return the billing rule factory.
+	 */
+	public BillingRuleFactory getRuleFactory() {
+		return ruleFactory;
+	}
+
+	/**
+	 * Returns the number of minutes covered by the table.
+	 *
+	 * @return the number of minutes.
+	 */
+	public int getMinutes() {
+		return minutes;
+	}
+
+	/**
+	 * Returns the built table.
+	 *
+	 * @return the costs, in cents.
+	 * @throws IllegalStateException if the table has not been built.
+	 */
+	private long[] getCosts() {
+		final long[] table = costs;
+		if (table == null) {
+			throw new IllegalStateException("The cost table has not been built.");
+		}
+		return table;
+	}
+}
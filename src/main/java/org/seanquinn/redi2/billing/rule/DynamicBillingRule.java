@@ -24,9 +24,10 @@
 package org.seanquinn.redi2.billing.rule;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.CurrencyUtils;
+import org.seanquinn.redi2.utils.TimeUtils;
 
 /**
  * An implementation of the {@link BillingRule} interface which is dynamic (e.g.
@@ -87,11 +88,29 @@ public class DynamicBillingRule implements BillingRule {
 	 * {@inheritDoc}
 	 */
 	public BigDecimal calculateCost(final Engagement engagement) {
-		final double minutes = engagement.getMinutes();
+		return CurrencyUtils.fromCents(calculateCostInCents(engagement.getLengthMs()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public long calculateCostInCents(final long lengthMs) {
+		final double minutes = TimeUtils.toMinutes(lengthMs);
 		final double adjusted = minutes * getTimeAdjustmentFactor();
+		return CurrencyUtils.toCents(adjusted * getRate());
+	}
 
-		final BigDecimal cost = new BigDecimal(adjusted * getRate());
-		return cost.setScale(2, RoundingMode.HALF_UP);
+	/**
+	 * {@inheritDoc}
+	 */
+	public void calculateCostsInCents(final long[] lengthsMs, final int from, final int to,
+			final long[] outCents) {
+		final double factor = getTimeAdjustmentFactor();
+		final double rate = getRate();
+		for (int i = from; i < to; i++) {
+			final double adjusted = TimeUtils.toMinutes(lengthsMs[i]) * factor;
+			outCents[i] = CurrencyUtils.toCents(adjusted * rate);
+		}
 	}
 
 	/**
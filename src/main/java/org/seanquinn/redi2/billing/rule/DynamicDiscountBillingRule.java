@@ -23,11 +23,7 @@
  */
 package org.seanquinn.redi2.billing.rule;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
 import org.seanquinn.redi2.billing.discount.DiscountCalculator;
-import org.seanquinn.redi2.domain.Engagement;
 
 /**
  * A dynamic billing rule, with discounts.
@@ -57,15 +53,32 @@ public class DynamicDiscountBillingRule extends DynamicBillingRule {
 	 * </p>
 	 */
 	@Override
-	public BigDecimal calculateCost(final Engagement engagement) {
-		final BigDecimal cost = super.calculateCost(engagement);
+	public long calculateCostInCents(final long lengthMs) {
+		final long cost = super.calculateCostInCents(lengthMs);
 		if (discountCalculator != null) {
-			BigDecimal discountedCost = cost.subtract(discountCalculator.calculateDiscount(engagement));
-			return discountedCost.setScale(2, RoundingMode.HALF_UP);
+			return cost - discountCalculator.calculateDiscountInCents(lengthMs);
 		}
 		return cost;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * As with {@link #calculateCostInCents(long)}, each cost is less the
+	 * discount calculated by the registered {@link DiscountCalculator}.
+	 * </p>
+	 */
+	@Override
+	public void calculateCostsInCents(final long[] lengthsMs, final int from, final int to,
+			final long[] outCents) {
+		super.calculateCostsInCents(lengthsMs, from, to, outCents);
+		if (discountCalculator != null) {
+			for (int i = from; i < to; i++) {
+				outCents[i] -= discountCalculator.calculateDiscountInCents(lengthsMs[i]);
+			}
+		}
+	}
+
 	/**
 	 * Returns the {@link DiscountCalculator}.
 	 *
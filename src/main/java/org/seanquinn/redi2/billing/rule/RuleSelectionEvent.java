@@ -0,0 +1,66 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for the selection of the {@link BillingRule} of an
+ * engagement by a {@link BillingRuleFactory}.
+ * <p>
+ * Rules are selected once per engagement, far too often to record each
+ * selection, so only a sample of one in {@link #SAMPLE_RATE} is recorded;
+ * the rate may be set with the {@code redi2.jfr.ruleSelectionSampleRate}
+ * system property.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+@Name("org.seanquinn.redi2.RuleSelection")
+@Label("Rule Selection")
+@Category({ "Redi2", "Billing" })
+@Description("A sample of the billing rules selected for engagements")
+@StackTrace(false)
+class RuleSelectionEvent extends Event {
+
+	/** The number of selections of which one is recorded. */
+	static final int SAMPLE_RATE = Math.max(1, Integer.getInteger("redi2.jfr.ruleSelectionSampleRate", 1024));
+
+	@Label("Length")
+	@Timespan(Timespan.MILLISECONDS)
+	long lengthMs;
+
+	@Label("Tier")
+	int tier;
+
+	@Label("Tier Count")
+	int tierCount;
+}
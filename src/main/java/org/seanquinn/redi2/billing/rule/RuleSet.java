@@ -0,0 +1,100 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+/**
+ * An immutable snapshot of the rules by which engagements are billed: a
+ * {@link BillingRuleFactory}, the {@link CostTable} built from it (if any),
+ * and the version under which they were published to a
+ * {@link RuleSetRegistry}.
+ * <p>
+ * An engagement (or batch of engagements) is billed entirely by a single
+ * rule set, so that it never sees a mix of the rules of two versions.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public final class RuleSet {
+
+	private final long version;
+
+	private final BillingRuleFactory ruleFactory;
+
+	private final CostTable costTable;
+
+	/**
+	 * Instantiates a new rule set.
+	 *
+	 * @param version the version of the rule set.
+	 * @param ruleFactory the billing rule factory.
+	 * @param costTable the cost table built from the factory, or
+	 * 		{@code null} if every cost is computed.
+	 */
+	public RuleSet(final long version, final BillingRuleFactory ruleFactory, final CostTable costTable) {
+		if (ruleFactory == null) {
+			throw new IllegalArgumentException("A rule set must have a billing rule factory.");
+		}
+		if (costTable != null && costTable.getRuleFactory() != ruleFactory) {
+			throw new IllegalArgumentException("The cost table of a rule set must be built from its factory.");
+		}
+		this.version = version;
+		this.ruleFactory = ruleFactory;
+		this.costTable = costTable;
+	}
+
+	/**
+	 * Returns the version of the rule set; each rule set published to a
+	 * registry has a higher version than the last.
+	 *
+	 * @return the version.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the {@link BillingRuleFactory} from which rules are resolved.
+	 *
+	 * @return the billing rule factory.
+	 */
+	public BillingRuleFactory getRuleFactory() {
+		return ruleFactory;
+	}
+
+	/**
+	 * Returns the {@link CostTable} from which the costs of engagements of
+	 * whole minutes are looked up, if any.
+	 *
+	 * @return the cost table, or {@code null}.
+	 */
+	public CostTable getCostTable() {
+		return costTable;
+	}
+
+	@Override
+	public String toString() {
+		return "RuleSet [version=" + version + ", tiers=" + ruleFactory.getTiers() + "]";
+	}
+}
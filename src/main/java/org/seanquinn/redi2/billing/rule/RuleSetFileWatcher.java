@@ -0,0 +1,170 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a file of billing tiers (in the format read by the
+ * {@link BillingTierLoader}) and, each time it changes, loads it and
+ * publishes the tiers to a {@link RuleSetRegistry}.
+ * <p>
+ * The file is polled for a change to its modification time or size on a
+ * daemon thread. A change is only loaded once the file has stayed the same
+ * for a whole poll, and is discarded if the file changes again while it is
+ * being loaded; so a file which is still being written (which may well be
+ * valid, but missing its last tiers) is not published. A writer which may
+ * pause for longer than the interval should write a temporary file and
+ * rename it into place, which changes the file at once. If the changed
+ * file cannot be loaded, the error is logged and the active rules are kept
+ * until the file changes again.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class RuleSetFileWatcher implements Closeable {
+
+	/** The default interval at which the file is polled, in milliseconds. */
+	public static final long DEFAULT_INTERVAL_MS = 1000;
+
+	private final RuleSetRegistry registry;
+
+	private final File file;
+
+	private ScheduledExecutorService scheduler;
+
+	/** The modification time and size of the file when it was last loaded. */
+	private long lastModified;
+	private long length;
+
+	/**
+	 * The modification time and size of a change seen by the previous poll,
+	 * which is loaded if the next finds the file the same; or -1.
+	 */
+	private long changedModified = -1;
+	private long changedLength = -1;
+
+	/**
+	 * Instantiates a new watcher of the file at the passed path. The file as
+	 * it is now is taken to be the one from which the active rules were
+	 * loaded; only later changes are published.
+	 *
+	 * @param registry the registry to publish to.
+	 * @param path the path to the file of tiers.
+	 */
+	public RuleSetFileWatcher(final RuleSetRegistry registry, final String path) {
+		this.registry = registry;
+		this.file = new File(path);
+		this.lastModified = file.lastModified();
+		this.length = file.length();
+	}
+
+	/**
+	 * Starts polling the file every {@code intervalMs} milliseconds.
+	 *
+	 * @param intervalMs the interval between polls, in milliseconds.
+	 */
+	public synchronized void start(final long intervalMs) {
+		if (scheduler != null) {
+			throw new IllegalStateException("The watcher of " + file + " has already been started.");
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "redi2-rule-watcher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				poll();
+			}
+		}, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Checks the file now and, if it has changed since it was last loaded
+	 * and is the same as when the previous poll saw it, loads and publishes
+	 * its tiers.
+	 *
+	 * @return the published rule set, or {@code null} if the file had not
+	 * 		changed, was still changing, or could not be loaded.
+	 */
+	public synchronized RuleSet poll() {
+		final long modified = file.lastModified();
+		final long size = file.length();
+		if (modified == lastModified && size == length) {
+			changedModified = -1;
+			changedLength = -1;
+			return null;
+		}
+		if (modified != changedModified || size != changedLength) {
+			// ** Wait for the file to settle before loading it.
+			changedModified = modified;
+			changedLength = size;
+			return null;
+		}
+
+		try {
+			final BillingRuleFactory ruleFactory = BillingTierLoader.load(file.getPath());
+			if (file.lastModified() != modified || file.length() != size) {
+				// ** The file changed again while it was loaded; load it once it settles.
+				changedModified = file.lastModified();
+				changedLength = file.length();
+				return null;
+			}
+			lastModified = modified;
+			length = size;
+
+			final RuleSet ruleSet = registry.publish(ruleFactory);
+			System.err.println("Reloaded billing tiers from " + file + " as version " + ruleSet.getVersion());
+			return ruleSet;
+		}
+		catch (final Exception ex) {
+			lastModified = modified;
+			length = size;
+
+			// In lieu of proper logging, e.g. Log4J
+			System.err.println("Unable to reload billing tiers from " + file + "; keeping version "
+					+ registry.getRuleSet().getVersion() + ": " + ex.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Stops polling the file.
+	 */
+	public synchronized void close() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the active {@link RuleSet}, and allows it to be replaced at runtime
+ * (for example, when a file of tiers changes) without restarting.
+ * <p>
+ * Readers take the current rule set with a single volatile read and never
+ * block; a rule set is immutable, so a billing thread which took one before
+ * it was replaced carries on billing by it, and a thread which takes one
+ * afterwards sees the new rules in their entirety.
+ * </p>
+ * <p>
+ * If the active rule set has a {@link CostTable}, a table is built in the
+ * background for each rule set published in its place; until it is ready,
+ * the new rules compute every cost.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class RuleSetRegistry {
+
+	private final AtomicReference<RuleSet> current;
+
+	private final List<RuleSetListener> listeners = new CopyOnWriteArrayList<RuleSetListener>();
+
+	/**
+	 * Instantiates a new registry whose first rule set (version one) resolves
+	 * rules from the passed {@link BillingRuleFactory}, computing every cost.
+	 *
+	 * @param ruleFactory the billing rule factory.
+	 */
+	public RuleSetRegistry(final BillingRuleFactory ruleFactory) {
+		this(new RuleSet(1, ruleFactory, null));
+	}
+
+	/**
+	 * Instantiates a new registry whose first rule set (version one) looks up
+	 * costs from the passed {@link CostTable} and resolves rules from the
+	 * factory it was built from.
+	 *
+	 * @param costTable the cost table.
+	 */
+	public RuleSetRegistry(final CostTable costTable) {
+		this(new RuleSet(1, costTable.getRuleFactory(), costTable));
+	}
+
+	/**
+	 * Instantiates a new registry whose first rule set is the one passed.
+	 *
+	 * @param ruleSet the rule set.
+	 */
+	public RuleSetRegistry(final RuleSet ruleSet) {
+		this.current = new AtomicReference<RuleSet>(ruleSet);
+	}
+
+	/**
+	 * Returns the active rule set.
+	 *
+	 * @return the rule set.
+	 */
+	public RuleSet getRuleSet() {
+		return current.get();
+	}
+
+	/**
+	 * Publishes a new rule set, which resolves rules from the passed
+	 * {@link BillingRuleFactory}, in place of the active one; its version is
+	 * one higher than that of the rule set it replaces. Listeners are
+	 * notified once it has been published.
+	 *
+	 * @param ruleFactory the billing rule factory.
+	 * @return the published rule set.
+	 */
+	public RuleSet publish(final BillingRuleFactory ruleFactory) {
+		RuleSet previous;
+		RuleSet next;
+		CostTable costTable = null;
+		do {
+			previous = current.get();
+			if (previous.getCostTable() != null && costTable == null) {
+				costTable = new CostTable(ruleFactory);
+			}
+			next = new RuleSet(previous.getVersion() + 1, ruleFactory,
+					previous.getCostTable() != null ? costTable : null);
+		}
+		while (!current.compareAndSet(previous, next));
+
+		if (next.getCostTable() != null) {
+			next.getCostTable().buildInBackground();
+		}
+		for (final RuleSetListener listener : listeners) {
+			listener.onPublished(previous, next);
+		}
+		return next;
+	}
+
+	/**
+	 * Registers a listener to be notified of each rule set published from
+	 * now on.
+	 *
+	 * @param listener the listener.
+	 */
+	public void addListener(final RuleSetListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Deregisters a listener.
+	 *
+	 * @param listener the listener.
+	 */
+	public void removeListener(final RuleSetListener listener) {
+		listeners.remove(listener);
+	}
+}
@@ -23,15 +23,26 @@
  */
 package org.seanquinn.redi2.domain;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.Locale;
 import java.util.UUID;
 
+import org.seanquinn.redi2.domain.id.RandomReportIdGenerator;
+import org.seanquinn.redi2.domain.id.ReportIdGenerator;
 import org.seanquinn.redi2.utils.CurrencyUtils;
 
 /**
  * The billing report that reflects the billed amount for an {@link Engagement}.
+ * <p>
+ * The report's unique ID is not generated until it is first requested (or
+ * the report is serialized), so reports whose ID is never used never pay
+ * for one; unless the generator is {@link ReportIdGenerator#isOrdered()
+ * ordered}, in which case the ID is generated when the report is created,
+ * so that IDs follow the order of the reports.
+ * </p>
  *
  * @author Sean.Quinn
  * @since 1.0
@@ -52,24 +63,90 @@ public class BillingReport implements Serializable {
 	 */
 	private final BigDecimal billed;
 
+	/** The generator used for report IDs when none is passed. */
+	private static final ReportIdGenerator DEFAULT_ID_GENERATOR = new RandomReportIdGenerator();
+
+	/**
+	 * A unique ID for the billing report; generated on first use, or on
+	 * creation if the generator is ordered.
+	 */
+	private volatile UUID uuid;
+
 	/**
-	 * A unique ID for the billing report.
+	 * The generator from which the {@link #uuid} is generated.
 	 */
-	private final UUID uuid;
+	private final transient ReportIdGenerator idGenerator;
 
+	/**
+	 * The version of the rule set by which the engagement was billed; or zero
+	 * if it is not known.
+	 */
+	private final long ruleSetVersion;
+
+	/**
+	 * Instantiates a new billing report, whose ID will be a cryptographically
+	 * strong random UUID.
+	 *
+	 * @param engagement the {@code Engagement}.
+	 * @param billed the amount billed.
+	 */
 	public BillingReport(final Engagement engagement, final BigDecimal billed) {
-		this.uuid = UUID.randomUUID();
+		this(engagement, billed, DEFAULT_ID_GENERATOR);
+	}
+
+	/**
+	 * Instantiates a new billing report, whose ID will be generated by the
+	 * passed {@link ReportIdGenerator} when it is first requested.
+	 *
+	 * @param engagement the {@code Engagement}.
+	 * @param billed the amount billed.
+	 * @param idGenerator the report ID generator.
+	 */
+	public BillingReport(final Engagement engagement, final BigDecimal billed,
+			final ReportIdGenerator idGenerator) {
+		this(engagement, billed, idGenerator, 0);
+	}
+
+	/**
+	 * Instantiates a new billing report for an engagement billed by the rule
+	 * set of the passed version, whose ID will be generated by the passed
+	 * {@link ReportIdGenerator} when it is first requested (or now, if the
+	 * generator is ordered).
+	 *
+	 * @param engagement the {@code Engagement}.
+	 * @param billed the amount billed.
+	 * @param idGenerator the report ID generator.
+	 * @param ruleSetVersion the version of the rule set.
+	 */
+	public BillingReport(final Engagement engagement, final BigDecimal billed,
+			final ReportIdGenerator idGenerator, final long ruleSetVersion) {
 		this.engagement = engagement;
 		this.billed = billed;
+		this.idGenerator = idGenerator;
+		this.ruleSetVersion = ruleSetVersion;
+		if (idGenerator.isOrdered()) {
+			this.uuid = idGenerator.nextId();
+		}
 	}
 
 	/**
-	 * Returns the billing report's {@link #uuid}.
+	 * Returns the billing report's {@link #uuid}, generating it if this is
+	 * the first time it has been requested.
 	 *
 	 * @return the billing report's uuid.
 	 */
 	public UUID getUuid() {
-		return uuid;
+		UUID result = uuid;
+		if (result == null) {
+			synchronized (this) {
+				result = uuid;
+				if (result == null) {
+					result = idGenerator.nextId();
+					uuid = result;
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -78,7 +155,7 @@ public class BillingReport implements Serializable {
 	 * @return the billing report's uuid as a string.
 	 */
 	public String getUuidAsString() {
-		return uuid.toString();
+		return getUuid().toString();
 	}
 
 	/**
@@ -108,6 +185,10 @@ public class BillingReport implements Serializable {
 	 * @return the billing amount as a currency.
 	 */
 	public String getBilledAsCurrency(final Locale locale) {
+		// ** Amounts billed in whole cents are formatted from their cents.
+		if (billed.scale() == 2 && billed.precision() < 19) {
+			return CurrencyUtils.asCurrencyFromCents(billed.unscaledValue().longValue(), locale);
+		}
 		return CurrencyUtils.asCurrency(billed.doubleValue(), locale);
 	}
 
@@ -120,4 +201,25 @@ public class BillingReport implements Serializable {
 		return engagement;
 	}
 
+	/**
+	 * Returns the version of the rule set by which the engagement was billed.
+	 *
+	 * @return the rule set version, or zero if it is not known.
+	 */
+	public long getRuleSetVersion() {
+		return ruleSetVersion;
+	}
+
+	/**
+	 * Generates the report's ID, if it has not been already, before the
+	 * report is serialized; the generator itself is not serialized.
+	 *
+	 * @param out the output stream.
+	 * @throws IOException if the report cannot be written.
+	 */
+	private void writeObject(final ObjectOutputStream out) throws IOException {
+		getUuid();
+		out.defaultWriteObject();
+	}
+
 }
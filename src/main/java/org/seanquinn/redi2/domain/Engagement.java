@@ -78,7 +78,7 @@ public class Engagement implements Serializable {
 	 * @return
 	 */
 	public double getMinutes() {
-		return lengthMs / TimeUtils.ONE_MINUTE_MS;
+		return TimeUtils.toMinutes(lengthMs);
 	}
 
 	/**
@@ -88,7 +88,7 @@ public class Engagement implements Serializable {
 	 * @return the number of hours.
 	 */
 	public double getHours() {
-		return (double) lengthMs / (double) TimeUtils.ONE_HOUR_MS;
+		return TimeUtils.toHours(lengthMs);
 	}
 
 	@Override
@@ -0,0 +1,57 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.domain.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An implementation of the {@link ReportIdGenerator} which generates random
+ * (version 4) UUIDs from a {@link ThreadLocalRandom}.
+ * <p>
+ * The IDs have the same form as those of {@link RandomReportIdGenerator}, and
+ * collide no more often, but are not cryptographically strong; they must not
+ * be relied upon to be unguessable. In exchange, no thread ever contends
+ * with another or blocks to generate one.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class FastRandomReportIdGenerator implements ReportIdGenerator {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public UUID nextId() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		long mostSigBits = random.nextLong();
+		long leastSigBits = random.nextLong();
+
+		// ** Version 4 (random), IETF variant; as with UUID.randomUUID().
+		mostSigBits = (mostSigBits & ~0xF000L) | 0x4000L;
+		leastSigBits = (leastSigBits & ~(0xC000000000000000L)) | 0x8000000000000000L;
+		return new UUID(mostSigBits, leastSigBits);
+	}
+}
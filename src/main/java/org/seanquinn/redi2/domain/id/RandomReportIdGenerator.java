@@ -0,0 +1,49 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.domain.id;
+
+import java.util.UUID;
+
+/**
+ * An implementation of the {@link ReportIdGenerator} which generates
+ * cryptographically strong random (version 4) UUIDs through
+ * {@link UUID#randomUUID()}.
+ * <p>
+ * The IDs are unguessable, but each one is drawn from a shared
+ * {@code SecureRandom}, which is comparatively slow, contends under
+ * multithreaded load, and may block while the system gathers entropy.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class RandomReportIdGenerator implements ReportIdGenerator {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public UUID nextId() {
+		return UUID.randomUUID();
+	}
+}
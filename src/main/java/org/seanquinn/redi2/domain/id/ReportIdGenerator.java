@@ -0,0 +1,58 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.domain.id;
+
+import java.util.UUID;
+
+/**
+ * Contract for generating the unique IDs of billing reports.
+ * <p>
+ * Implementations must be thread-safe; a single generator is shared by every
+ * report a billing service produces, on every thread.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public interface ReportIdGenerator {
+
+	/**
+	 * Returns a new, unique ID.
+	 *
+	 * @return the ID.
+	 */
+	UUID nextId();
+
+	/**
+	 * Return <tt>true</tt> if the IDs of this generator sort in the order in
+	 * which they were generated. A report then takes its ID as soon as it is
+	 * created, rather than when it is first requested, so that the order of
+	 * the IDs is that in which the reports were created.
+	 *
+	 * @return <tt>true</tt> if the IDs are ordered; otherwise <tt>false</tt>.
+	 */
+	default boolean isOrdered() {
+		return false;
+	}
+}
@@ -0,0 +1,95 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.domain.id;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An implementation of the {@link ReportIdGenerator} which generates
+ * sequential IDs: the most significant bits are a random prefix chosen once
+ * per generator, and the least significant bits are a counter.
+ * <p>
+ * Generating an ID is a single atomic increment, and the IDs of a generator
+ * sort in the order in which they were generated. They are unique to the
+ * generator (up to 2<sup>62</sup> IDs), and the random prefix makes it
+ * vanishingly unlikely that two generators share IDs, but they are
+ * trivially guessable.
+ * </p>
+ * <p>
+ * The generator is {@link #isOrdered() ordered}, so each report takes its
+ * ID when it is created; the IDs of a batch follow the order of its
+ * reports, whichever is printed first.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class SequentialReportIdGenerator implements ReportIdGenerator {
+
+	/** The mask of the bits of the counter kept in each ID. */
+	private static final long SEQUENCE_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+	/** The IETF variant bits. */
+	private static final long VARIANT = 0x8000000000000000L;
+
+	private final long prefix;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Instantiates a new generator with a random prefix.
+	 */
+	public SequentialReportIdGenerator() {
+		// ** Version 4, as the prefix is random.
+		this((new SecureRandom().nextLong() & ~0xF000L) | 0x4000L);
+	}
+
+	/**
+	 * Instantiates a new generator with the passed prefix, which will be the
+	 * most significant bits of every ID.
+	 *
+	 * @param prefix the prefix.
+	 */
+	public SequentialReportIdGenerator(final long prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public UUID nextId() {
+		final long next = sequence.incrementAndGet();
+		return new UUID(prefix, (next & SEQUENCE_MASK) | VARIANT);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isOrdered() {
+		return true;
+	}
+}
@@ -0,0 +1,134 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The layout of binary files of engagements: a header of
+ * {@value #HEADER_SIZE} bytes, followed by the length of each engagement, in
+ * milliseconds, as a little-endian {@code long}.
+ * <p>
+ * The header is the eight ASCII bytes {@code REDI2ENG}, the version of the
+ * format as a little-endian {@code int}, and four reserved bytes, which keep
+ * the records aligned to eight bytes. The number of records is implied by
+ * the size of the file.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public final class BinaryEngagementFile {
+
+	/** The size of the header, in bytes. */
+	public static final int HEADER_SIZE = 16;
+
+	/** The size of each record, in bytes. */
+	public static final int RECORD_SIZE = 8;
+
+	/** The version of the format written. */
+	public static final int VERSION = 1;
+
+	/** The byte order of the header and the records. */
+	public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	private static final byte[] MAGIC = { 'R', 'E', 'D', 'I', '2', 'E', 'N', 'G' };
+
+	private BinaryEngagementFile() {
+	}
+
+	/**
+	 * Return <tt>true</tt> if the file at the passed path begins with the
+	 * magic bytes of a binary file of engagements.
+	 *
+	 * @param path the path to the file.
+	 * @return <tt>true</tt> if the file is a binary file of engagements;
+	 * 		otherwise <tt>false</tt>.
+	 * @throws java.io.FileNotFoundException if the file does not exist.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static boolean isBinary(final String path) throws IOException {
+		final InputStream in = new FileInputStream(path);
+		try {
+			final byte[] magic = new byte[MAGIC.length];
+			int read = 0;
+			while (read < magic.length) {
+				final int n = in.read(magic, read, magic.length - read);
+				if (n < 0) {
+					return false;
+				}
+				read += n;
+			}
+			return isMagic(magic);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes the header to the passed buffer, at its position.
+	 *
+	 * @param buffer the buffer.
+	 */
+	static void writeHeader(final ByteBuffer buffer) {
+		buffer.put(MAGIC);
+		buffer.order(BYTE_ORDER).putInt(VERSION).putInt(0);
+	}
+
+	/**
+	 * Reads and checks the header from the passed buffer, at its position.
+	 *
+	 * @param buffer the buffer.
+	 * @param path the path to the file, for error messages.
+	 * @throws IOException if the header is not that of a supported binary
+	 * 		file of engagements.
+	 */
+	static void readHeader(final ByteBuffer buffer, final String path) throws IOException {
+		final byte[] magic = new byte[MAGIC.length];
+		buffer.get(magic);
+		if (!isMagic(magic)) {
+			throw new IOException(path + " is not a binary file of engagements.");
+		}
+		final int version = buffer.order(BYTE_ORDER).getInt();
+		if (version != VERSION) {
+			throw new IOException(path + " is of version " + version + " of the binary format; only version "
+					+ VERSION + " is supported.");
+		}
+		buffer.getInt();
+	}
+
+	private static boolean isMagic(final byte[] magic) {
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (magic[i] != MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,144 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads binary files of engagements (see {@link BinaryEngagementFile}) by
+ * mapping them into memory and copying the records out through a
+ * {@link LongBuffer} view, a chunk at a time; there is no parsing per
+ * record.
+ * <p>
+ * As with the {@link MappedMinuteFileReader}, files larger than the window
+ * size are mapped one window at a time.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class BinaryEngagementFileReader {
+
+	/** The default number of engagements passed to the handler at a time. */
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	/** The default number of records mapped at a time (1GB). */
+	private static final int DEFAULT_WINDOW_RECORDS = 1 << 27;
+
+	private final int chunkSize;
+
+	private final int windowRecords;
+
+	/**
+	 * Instantiates a new reader which passes {@value #DEFAULT_CHUNK_SIZE}
+	 * engagements to the handler at a time, and maps up to 1GB of the file
+	 * at a time.
+	 */
+	public BinaryEngagementFileReader() {
+		this(DEFAULT_CHUNK_SIZE, DEFAULT_WINDOW_RECORDS);
+	}
+
+	/**
+	 * Instantiates a new reader which passes {@code chunkSize} engagements to
+	 * the handler at a time, and maps up to {@code windowRecords} records of
+	 * the file at a time.
+	 *
+	 * @param chunkSize the number of engagements passed to the handler at a
+	 * 		time.
+	 * @param windowRecords the number of records mapped at a time.
+	 */
+	public BinaryEngagementFileReader(final int chunkSize, final int windowRecords) {
+		if (chunkSize <= 0 || windowRecords <= 0) {
+			throw new IllegalArgumentException("The chunk size and window must be positive.");
+		}
+		this.chunkSize = chunkSize;
+		this.windowRecords = windowRecords;
+	}
+
+	/**
+	 * Reads the file at the passed path, notifying the
+	 * {@link EngagementLengthHandler} of each chunk of engagements in the
+	 * order in which they appear.
+	 *
+	 * @param path the path to the file.
+	 * @param handler the handler.
+	 * @return the number of engagements read.
+	 * @throws FileNotFoundException if the file does not exist.
+	 * @throws IOException if the file cannot be read, or is not a binary file
+	 * 		of engagements.
+	 */
+	public long read(final String path, final EngagementLengthHandler handler) throws IOException {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(path, "r");
+
+			final FileChannel channel = file.getChannel();
+			final long size = channel.size();
+			if (size < BinaryEngagementFile.HEADER_SIZE) {
+				throw new IOException(path + " is too short to be a binary file of engagements.");
+			}
+			if ((size - BinaryEngagementFile.HEADER_SIZE) % BinaryEngagementFile.RECORD_SIZE != 0) {
+				throw new IOException(path + " ends with a partial record.");
+			}
+			BinaryEngagementFile.readHeader(
+					channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryEngagementFile.HEADER_SIZE), path);
+
+			final long records = (size - BinaryEngagementFile.HEADER_SIZE) / BinaryEngagementFile.RECORD_SIZE;
+			final long[] chunk = new long[(int) Math.min(chunkSize, Math.max(records, 1))];
+
+			long record = 0;
+			while (record < records) {
+				final int length = (int) Math.min(windowRecords, records - record);
+				final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+						BinaryEngagementFile.HEADER_SIZE + record * BinaryEngagementFile.RECORD_SIZE,
+						(long) length * BinaryEngagementFile.RECORD_SIZE);
+				final LongBuffer lengths = window.order(BinaryEngagementFile.BYTE_ORDER).asLongBuffer();
+
+				while (lengths.hasRemaining()) {
+					final int count = Math.min(chunk.length, lengths.remaining());
+					lengths.get(chunk, 0, count);
+					handler.onLengths(chunk, count);
+				}
+				record += length;
+			}
+			return records;
+		}
+		catch (final FileNotFoundException ex) {
+			ex.printStackTrace();
+			throw ex;
+		}
+		finally {
+			// ** If the file is non-null, close it (and its channel).
+			if (file != null) {
+				file.close();
+				file = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes binary files of engagements (see {@link BinaryEngagementFile})
+ * through a buffer of records.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class BinaryEngagementFileWriter implements Flushable, Closeable {
+
+	/** The default size of the buffer, in bytes. */
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final FileOutputStream out;
+
+	private final FileChannel channel;
+
+	private final ByteBuffer buffer;
+
+	private long count;
+
+	/**
+	 * Instantiates a new writer which creates (or replaces) the file at the
+	 * passed path, and writes its header.
+	 *
+	 * @param path the path to the file.
+	 * @throws IOException if the file cannot be created.
+	 */
+	public BinaryEngagementFileWriter(final String path) throws IOException {
+		this.out = new FileOutputStream(path);
+		this.channel = out.getChannel();
+		this.buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+		BinaryEngagementFile.writeHeader(buffer);
+	}
+
+	/**
+	 * Writes the length of an engagement.
+	 *
+	 * @param lengthMs the length of the engagement, in milliseconds.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void write(final long lengthMs) throws IOException {
+		if (buffer.remaining() < BinaryEngagementFile.RECORD_SIZE) {
+			drain();
+		}
+		buffer.putLong(lengthMs);
+		count++;
+	}
+
+	/**
+	 * Returns the number of engagements written.
+	 *
+	 * @return the count.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void flush() throws IOException {
+		drain();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void close() throws IOException {
+		try {
+			drain();
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,88 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * An implementation of the {@link MinuteFileReader} which reads the file
+ * line-by-line through a {@link BufferedReader}, parsing each line as a
+ * {@link Double}.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class BufferedMinuteFileReader implements MinuteFileReader {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void read(final String path, final MinuteFileHandler handler) throws IOException {
+		FileInputStream fs = null;
+		BufferedReader reader = null;
+		try {
+			fs = new FileInputStream(path);
+			reader = new BufferedReader(new InputStreamReader(fs));
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!MinuteLineParser.mayBeNumber(line)) {
+					handler.onUnparseable(line);
+					continue;
+				}
+
+				final double minutes;
+				try {
+					minutes = Double.parseDouble(line);
+				}
+				catch (final NumberFormatException ex) {
+					handler.onUnparseable(line);
+					continue;
+				}
+				handler.onMinutes(minutes);
+			}
+		}
+		catch (final FileNotFoundException ex) {
+			ex.printStackTrace();
+			throw ex;
+		}
+		finally {
+			// ** If the reader is non-null, close it.
+			if (reader != null) {
+				reader.close();
+				reader = null;
+			}
+
+			// ** If the file input stream is non-null, close it.
+			if (fs != null) {
+				fs.close();
+				fs = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,323 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.seanquinn.redi2.io.codec.InputCodec;
+import org.seanquinn.redi2.io.codec.InputCodecs;
+
+/**
+ * An implementation of the {@link MinuteFileReader} which reads compressed
+ * files of minutes (see {@link InputCodecs}) without decompressing them to
+ * disk first, and passes any other file to another reader.
+ * <p>
+ * A compressed file is decompressed on a thread of its own, a chunk at a
+ * time, into a bounded queue; the calling thread takes each chunk from the
+ * queue and scans it with a {@link MinuteLineParser}, so decompression
+ * overlaps the parsing and billing of what has already been decompressed.
+ * Chunks are recycled once they have been scanned.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class DecompressingMinuteFileReader implements MinuteFileReader {
+
+	/** The default size of each chunk of decompressed bytes. */
+	private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+	/** The default number of decompressed chunks that may be queued. */
+	private static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+	/** The chunk which marks the end of the decompressed stream. */
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	private final MinuteFileReader uncompressedReader;
+
+	private final int chunkSize;
+
+	private final int queueCapacity;
+
+	/**
+	 * Instantiates a new reader which reads uncompressed files through a
+	 * {@link BufferedMinuteFileReader}.
+	 */
+	public DecompressingMinuteFileReader() {
+		this(new BufferedMinuteFileReader());
+	}
+
+	/**
+	 * Instantiates a new reader which reads uncompressed files through the
+	 * passed {@link MinuteFileReader}.
+	 *
+	 * @param uncompressedReader the reader used for uncompressed files.
+	 */
+	public DecompressingMinuteFileReader(final MinuteFileReader uncompressedReader) {
+		this(uncompressedReader, DEFAULT_CHUNK_SIZE, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new reader which reads uncompressed files through the
+	 * passed {@link MinuteFileReader}, and decompresses files in chunks of
+	 * {@code chunkSize} bytes, up to {@code queueCapacity} of which may be
+	 * decompressed ahead of the parser.
+	 *
+	 * @param uncompressedReader the reader used for uncompressed files.
+	 * @param chunkSize the size of each chunk of decompressed bytes.
+	 * @param queueCapacity the number of chunks that may be queued.
+	 */
+	public DecompressingMinuteFileReader(final MinuteFileReader uncompressedReader, final int chunkSize,
+			final int queueCapacity) {
+		if (chunkSize <= 0 || queueCapacity <= 0) {
+			throw new IllegalArgumentException("The chunk size and queue capacity must be positive.");
+		}
+		this.uncompressedReader = uncompressedReader;
+		this.chunkSize = chunkSize;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void read(final String path, final MinuteFileHandler handler) throws IOException {
+		final InputCodec codec;
+		try {
+			codec = InputCodecs.detect(path);
+		}
+		catch (final FileNotFoundException ex) {
+			ex.printStackTrace();
+			throw ex;
+		}
+
+		if (codec == null) {
+			uncompressedReader.read(path, handler);
+			return;
+		}
+
+		final InputStream in = new FileInputStream(path);
+		final Decompressor decompressor;
+		try {
+			decompressor = new Decompressor(codec.decompress(in));
+		}
+		catch (final IOException ex) {
+			in.close();
+			throw ex;
+		}
+
+		final Thread thread = new Thread(decompressor, "redi2-decompress");
+		thread.setDaemon(true);
+		thread.start();
+		try {
+			parse(decompressor, new MinuteLineParser(handler));
+		}
+		finally {
+			// ** Stops the decompressor if the parser (or its handler) failed.
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * Scans each chunk of decompressed bytes as it is queued. A line which
+	 * spans chunks is gathered into a pending buffer before it is scanned;
+	 * the rest of each chunk is scanned where it lies.
+	 *
+	 * @param decompressor the decompressor.
+	 * @param parser the parser.
+	 * @throws IOException if the file cannot be decompressed.
+	 */
+	private void parse(final Decompressor decompressor, final MinuteLineParser parser) throws IOException {
+		byte[] pending = new byte[chunkSize];
+		int pendingLength = 0;
+		try {
+			while (true) {
+				final ByteBuffer chunk = decompressor.full.take();
+				if (chunk == END) {
+					break;
+				}
+				final byte[] bytes = chunk.array();
+				final int length = chunk.limit();
+
+				int offset = 0;
+				if (pendingLength > 0) {
+					// ** Only the bytes which complete the pending line (if this chunk does) are copied.
+					final int end = indexOfLineEnd(bytes, length);
+					offset = end < 0 ? length : end + 1;
+					pending = ensureCapacity(pending, pendingLength + offset);
+					System.arraycopy(bytes, 0, pending, pendingLength, offset);
+					pendingLength += offset;
+
+					if (end >= 0) {
+						parser.parse(ByteBuffer.wrap(pending), 0, pendingLength);
+						pendingLength = 0;
+					}
+				}
+
+				if (pendingLength == 0) {
+					// ** Most lines end within the chunk they began in; only the remainder is copied.
+					final int consumed = parser.parse(chunk, offset, length);
+					if (consumed < length) {
+						pending = ensureCapacity(pending, length - consumed);
+						System.arraycopy(bytes, consumed, pending, 0, length - consumed);
+						pendingLength = length - consumed;
+					}
+				}
+				decompressor.free.offer(chunk);
+			}
+		}
+		catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading a compressed file.");
+		}
+
+		final Throwable error = decompressor.error;
+		if (error instanceof IOException) {
+			throw (IOException) error;
+		}
+		if (error instanceof Error) {
+			throw (Error) error;
+		}
+		if (error != null) {
+			throw new IOException("Failed to decompress the file.", error);
+		}
+		parser.finish(ByteBuffer.wrap(pending), 0, pendingLength);
+	}
+
+	/**
+	 * Returns the index of the first line feed or carriage return among the
+	 * first {@code length} bytes.
+	 *
+	 * @param bytes the bytes.
+	 * @param length the number of bytes to search.
+	 * @return the index, or -1 if there is none.
+	 */
+	private static int indexOfLineEnd(final byte[] bytes, final int length) {
+		for (int i = 0; i < length; i++) {
+			if (bytes[i] == '\n' || bytes[i] == '\r') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static byte[] ensureCapacity(final byte[] bytes, final int capacity) {
+		return capacity <= bytes.length ? bytes : Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+	}
+
+	/**
+	 * Task which decompresses a stream into chunks, queueing each chunk for
+	 * the parser with its limit set to the number of bytes it holds.
+	 */
+	private class Decompressor implements Runnable {
+
+		private final InputStream in;
+
+		private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<ByteBuffer>(queueCapacity);
+
+		/** The chunks which have been scanned, and may be filled again. */
+		private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<ByteBuffer>(queueCapacity + 2);
+
+		/** The error which stopped decompression, if any. */
+		private volatile Throwable error;
+
+		Decompressor(final InputStream in) {
+			this.in = in;
+		}
+
+		public void run() {
+			boolean interrupted = false;
+			try {
+				while (true) {
+					ByteBuffer chunk = free.poll();
+					if (chunk == null) {
+						chunk = ByteBuffer.allocate(chunkSize);
+					}
+
+					// ** Fill the chunk, so that the parser is handed as few as possible.
+					final byte[] bytes = chunk.array();
+					int length = 0;
+					int n = 0;
+					while (length < bytes.length && (n = in.read(bytes, length, bytes.length - length)) >= 0) {
+						length += n;
+					}
+					if (length > 0) {
+						chunk.clear().limit(length);
+						full.put(chunk);
+					}
+					if (n < 0) {
+						break;
+					}
+				}
+			}
+			catch (final InterruptedException ex) {
+				interrupted = true;
+			}
+			catch (final IOException ex) {
+				error = ex;
+			}
+			catch (final RuntimeException ex) {
+				error = ex;
+			}
+			catch (final Error ex) {
+				error = ex;
+			}
+			finally {
+				close();
+				// ** Whatever stopped decompression, the parser is waiting for the end.
+				if (!interrupted) {
+					try {
+						full.put(END);
+					}
+					catch (final InterruptedException ex) {
+						// ** The parser has stopped, so there is no one left to queue for.
+					}
+				}
+			}
+		}
+
+		private void close() {
+			try {
+				in.close();
+			}
+			catch (final IOException ex) {
+				if (error == null) {
+					error = ex;
+				}
+			}
+			catch (final RuntimeException ex) {
+				if (error == null) {
+					error = ex;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolves the files named on the command line, each of which may be a
+ * file, a directory, or a glob.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public final class InputFiles {
+
+	private InputFiles() {
+	}
+
+	/**
+	 * Returns the paths of the files named by the passed arguments, in a
+	 * deterministic order: the arguments in the order they were passed, with
+	 * each directory replaced by the regular files within it (but not its
+	 * subdirectories), and each glob replaced by the files it matches, both
+	 * sorted by name. Only the last part of a path may be a glob, e.g.
+	 * {@code shards/*.txt.gz}.
+	 * <p>
+	 * Any other argument is returned as it is, whether or not the file
+	 * exists, so that a missing file is reported when it is read.
+	 * </p>
+	 *
+	 * @param args the files, directories and globs.
+	 * @return the paths of the files.
+	 * @throws IOException if a directory cannot be listed.
+	 */
+	public static List<String> resolve(final String ... args) throws IOException {
+		final List<String> paths = new ArrayList<String>();
+		for (final String arg : args) {
+			final File file = new File(arg);
+			if (file.isDirectory()) {
+				paths.addAll(list(file.toPath(), "*"));
+			}
+			else if (!file.exists() && isGlob(file.getName())) {
+				final File parent = file.getParentFile();
+				paths.addAll(list(parent != null ? parent.toPath() : Paths.get(""), file.getName()));
+			}
+			else {
+				paths.add(arg);
+			}
+		}
+		return paths;
+	}
+
+	/**
+	 * Returns the regular files within the passed directory whose names
+	 * match the passed glob, sorted by name.
+	 *
+	 * @param directory the directory.
+	 * @param glob the glob.
+	 * @return the paths of the files.
+	 * @throws IOException if the directory cannot be listed.
+	 */
+	private static List<String> list(final Path directory, final String glob) throws IOException {
+		final List<String> paths = new ArrayList<String>();
+		final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob);
+		try {
+			for (final Path path : stream) {
+				if (Files.isRegularFile(path)) {
+					paths.add(path.toString());
+				}
+			}
+		}
+		finally {
+			stream.close();
+		}
+		Collections.sort(paths);
+		return paths;
+	}
+
+	private static boolean isGlob(final String name) {
+		for (int i = 0; i < name.length(); i++) {
+			final char c = name.charAt(i);
+			if (c == '*' || c == '?' || c == '[' || c == '{') {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An implementation of the {@link MinuteFileReader} which maps the file into
+ * memory and scans its bytes with a {@link MinuteLineParser}, avoiding the
+ * creation of a {@code String} and {@code Double} per line.
+ * <p>
+ * Files larger than the window size are mapped one window at a time; each
+ * window ends after the last complete line it contains, and the next window
+ * begins with the line that follows.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class MappedMinuteFileReader implements MinuteFileReader {
+
+	/** The default size of the region of the file mapped at a time. */
+	private static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+	private final int windowSize;
+
+	/**
+	 * Instantiates a new reader which maps up to 1GB of the file at a time.
+	 */
+	public MappedMinuteFileReader() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Instantiates a new reader which maps up to {@code windowSize} bytes of
+	 * the file at a time. No line may be longer than the window.
+	 *
+	 * @param windowSize the size of the region mapped at a time, in bytes.
+	 */
+	public MappedMinuteFileReader(final int windowSize) {
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("The window size must be positive.");
+		}
+		this.windowSize = windowSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void read(final String path, final MinuteFileHandler handler) throws IOException {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(path, "r");
+
+			final FileChannel channel = file.getChannel();
+			final MinuteLineParser parser = new MinuteLineParser(handler);
+			final long size = channel.size();
+
+			long position = 0;
+			while (position < size) {
+				final int length = (int) Math.min(windowSize, size - position);
+				final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+				if (position + length == size) {
+					parser.finish(window, 0, length);
+					break;
+				}
+
+				final int consumed = parser.parse(window, 0, length);
+				if (consumed == 0) {
+					throw new IOException("Line at offset " + position + " of " + path
+							+ " is longer than the window of " + windowSize + " bytes.");
+				}
+				position += consumed;
+			}
+		}
+		catch (final FileNotFoundException ex) {
+			ex.printStackTrace();
+			throw ex;
+		}
+		finally {
+			// ** If the file is non-null, close it (and its channel).
+			if (file != null) {
+				file.close();
+				file = null;
+			}
+		}
+	}
+}
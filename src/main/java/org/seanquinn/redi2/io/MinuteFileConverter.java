@@ -0,0 +1,103 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.seanquinn.redi2.utils.TimeUtils;
+
+/**
+ * Converts files of minutes, one number of minutes per line, to binary files
+ * of engagements (see {@link BinaryEngagementFile}).
+ * <p>
+ * Each number of minutes is converted to a length the same way the
+ * {@code Processor} converts it, by truncating it to whole minutes; so a
+ * converted file bills exactly as the original does. Lines which cannot be
+ * parsed are reported and skipped.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class MinuteFileConverter {
+
+	private final MinuteFileReader fileReader;
+
+	/**
+	 * Instantiates a new converter which reads files of minutes through a
+	 * {@link BufferedMinuteFileReader}.
+	 */
+	public MinuteFileConverter() {
+		this(new BufferedMinuteFileReader());
+	}
+
+	/**
+	 * Instantiates a new converter which reads files of minutes through the
+	 * passed {@link MinuteFileReader}.
+	 *
+	 * @param fileReader the reader used for files of minutes.
+	 */
+	public MinuteFileConverter(final MinuteFileReader fileReader) {
+		this.fileReader = fileReader;
+	}
+
+	/**
+	 * Converts the file of minutes at the passed path to a binary file of
+	 * engagements at the other.
+	 *
+	 * @param minutesPath the path to the file of minutes.
+	 * @param binaryPath the path to the binary file, which is created or
+	 * 		replaced.
+	 * @return the number of engagements converted.
+	 * @throws IOException if either file cannot be read or written.
+	 */
+	public long convert(final String minutesPath, final String binaryPath) throws IOException {
+		final BinaryEngagementFileWriter writer = new BinaryEngagementFileWriter(binaryPath);
+		try {
+			fileReader.read(minutesPath, new MinuteFileHandler() {
+				public void onMinutes(final double minutes) {
+					try {
+						writer.write((long) minutes * TimeUtils.ONE_MINUTE_MS);
+					}
+					catch (final IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				}
+
+				public void onUnparseable(final String line) {
+					System.err.println("Unable to parse the following to a number of minutes: " + line);
+				}
+			});
+		}
+		catch (final UncheckedIOException ex) {
+			// ** The handler cannot throw an IOException of its own when writing fails.
+			throw ex.getCause();
+		}
+		finally {
+			writer.close();
+		}
+		return writer.getCount();
+	}
+}
@@ -0,0 +1,47 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * Contract for reading files of minutes, one number of minutes per line.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public interface MinuteFileReader {
+
+	/**
+	 * Reads the file at the passed path, notifying the {@link MinuteFileHandler}
+	 * of each line in the order in which they appear.
+	 *
+	 * @param path the path to the file.
+	 * @param handler the handler.
+	 * @throws FileNotFoundException if the file does not exist.
+	 * @throws IOException if the file cannot be read.
+	 */
+	void read(String path, MinuteFileHandler handler) throws IOException;
+}
@@ -0,0 +1,251 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Parses lines of minutes directly from the bytes of a {@link ByteBuffer},
+ * without creating a {@code String} or {@code Double} per line.
+ * <p>
+ * Lines may be terminated by a line feed, a carriage return, or a carriage
+ * return followed by a line feed, and leading and trailing whitespace is
+ * ignored; the same as reading the lines through a {@code BufferedReader}
+ * and parsing them with {@link Double#parseDouble(String)}. Plain decimals of
+ * up to {@value #MAX_FAST_PATH_DIGITS} digits are converted from the bytes
+ * directly, which yields the very same {@code double} as parsing them would;
+ * anything else (exponents, type suffixes, very long numbers, or lines which
+ * are not numbers at all) falls back to {@code Double.parseDouble}.
+ * </p>
+ * <p>
+ * A parser carries state from one call to {@link #parse} to the next, so a
+ * new instance must be used for each file.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class MinuteLineParser {
+
+	/**
+	 * The maximum number of digits that will be converted without falling
+	 * back to {@code Double.parseDouble}. Any integer of up to 15 digits is
+	 * exactly representable as a {@code double}.
+	 */
+	private static final int MAX_FAST_PATH_DIGITS = 15;
+
+	/**
+	 * The powers of ten which are exactly representable as a {@code double}.
+	 */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private final MinuteFileHandler handler;
+
+	/**
+	 * Whether the last byte parsed was a carriage return, in which case a
+	 * line feed at the start of the next buffer completes that line ending.
+	 */
+	private boolean skipLineFeed;
+
+	/**
+	 * Instantiates a new parser which notifies the passed handler of each
+	 * line.
+	 *
+	 * @param handler the handler.
+	 */
+	public MinuteLineParser(final MinuteFileHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Parses each complete line between {@code position} (inclusive) and
+	 * {@code limit} (exclusive) of the passed buffer. A trailing line that is
+	 * not yet terminated is left unparsed, so that it may be passed again
+	 * once the rest of it has been read.
+	 *
+	 * @param buffer the buffer.
+	 * @param position the index of the first byte to parse.
+	 * @param limit the index after the last byte to parse.
+	 * @return the index of the first byte that was not parsed.
+	 */
+	public int parse(final ByteBuffer buffer, final int position, final int limit) {
+		int index = position;
+		if (skipLineFeed && index < limit) {
+			if (buffer.get(index) == '\n') {
+				index++;
+			}
+			skipLineFeed = false;
+		}
+
+		int start = index;
+		while (index < limit) {
+			final byte b = buffer.get(index++);
+			if (b == '\n' || b == '\r') {
+				parseLine(buffer, start, index - 1);
+				if (b == '\r') {
+					if (index == limit) {
+						skipLineFeed = true;
+					}
+					else if (buffer.get(index) == '\n') {
+						index++;
+					}
+				}
+				start = index;
+			}
+		}
+		return start;
+	}
+
+	/**
+	 * Parses every line between {@code position} (inclusive) and
+	 * {@code limit} (exclusive) of the passed buffer, including a final line
+	 * which is not terminated. This should be invoked for the end of the
+	 * input.
+	 *
+	 * @param buffer the buffer.
+	 * @param position the index of the first byte to parse.
+	 * @param limit the index after the last byte to parse.
+	 */
+	public void finish(final ByteBuffer buffer, final int position, final int limit) {
+		final int start = parse(buffer, position, limit);
+		if (start < limit) {
+			parseLine(buffer, start, limit);
+		}
+	}
+
+	/**
+	 * Parses a single line, excluding its line terminator.
+	 *
+	 * @param buffer the buffer.
+	 * @param start the index of the first byte of the line.
+	 * @param end the index after the last byte of the line.
+	 */
+	private void parseLine(final ByteBuffer buffer, final int start, final int end) {
+		int from = start;
+		int to = end;
+		while (from < to && (buffer.get(from) & 0xff) <= ' ') {
+			from++;
+		}
+		while (to > from && (buffer.get(to - 1) & 0xff) <= ' ') {
+			to--;
+		}
+
+		if (from < to) {
+			int index = from;
+			boolean negative = false;
+
+			final byte sign = buffer.get(index);
+			if (sign == '-' || sign == '+') {
+				negative = sign == '-';
+				index++;
+			}
+
+			long mantissa = 0;
+			int digits = 0;
+			int fractionDigits = 0;
+			boolean decimalPoint = false;
+			boolean plain = true;
+			for (; index < to; index++) {
+				final byte b = buffer.get(index);
+				if (b >= '0' && b <= '9') {
+					mantissa = mantissa * 10 + (b - '0');
+					digits++;
+					if (decimalPoint) {
+						fractionDigits++;
+					}
+				}
+				else if (b == '.' && !decimalPoint) {
+					decimalPoint = true;
+				}
+				else {
+					plain = false;
+					break;
+				}
+			}
+
+			if (plain && digits > 0 && digits <= MAX_FAST_PATH_DIGITS) {
+				// ** Both operands are exact, so the division is correctly rounded.
+				final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+				handler.onMinutes(negative ? -value : value);
+				return;
+			}
+		}
+		parseSlowly(buffer, start, end);
+	}
+
+	/**
+	 * Returns <tt>false</tt> if the passed line certainly cannot be parsed by
+	 * {@link Double#parseDouble(String)}, because it contains neither a digit
+	 * nor {@code NaN} or {@code Infinity}; such lines (blank lines, headings
+	 * and the like) are rejected without creating an exception.
+	 *
+	 * @param line the line.
+	 * @return <tt>false</tt> if the line is certainly not a number; otherwise
+	 * 		<tt>true</tt>.
+	 */
+	static boolean mayBeNumber(final String line) {
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (c >= '0' && c <= '9') {
+				return true;
+			}
+		}
+		return line.contains("NaN") || line.contains("Infinity");
+	}
+
+	/**
+	 * Parses a line which is not a plain decimal by decoding it to a
+	 * {@code String}.
+	 *
+	 * @param buffer the buffer.
+	 * @param start the index of the first byte of the line.
+	 * @param end the index after the last byte of the line.
+	 */
+	private void parseSlowly(final ByteBuffer buffer, final int start, final int end) {
+		final byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+
+		final String line = new String(bytes, Charset.defaultCharset());
+		if (!mayBeNumber(line)) {
+			handler.onUnparseable(line);
+			return;
+		}
+
+		final double minutes;
+		try {
+			minutes = Double.parseDouble(line);
+		}
+		catch (final NumberFormatException ex) {
+			handler.onUnparseable(line);
+			return;
+		}
+		handler.onMinutes(minutes);
+	}
+}
@@ -0,0 +1,72 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Contract for a compression format in which files of minutes may be
+ * stored, recognised by the first bytes of a file.
+ * <p>
+ * Gzip is supported out of the box; other formats (e.g. zstd or LZ4) may be
+ * added by an optional module which implements this interface and lists
+ * its implementation in
+ * {@code META-INF/services/org.seanquinn.redi2.io.codec.InputCodec}, to be
+ * discovered through the {@link java.util.ServiceLoader}.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public interface InputCodec {
+
+	/**
+	 * Returns the name of the format, e.g. {@code gzip}.
+	 *
+	 * @return the name.
+	 */
+	String getName();
+
+	/**
+	 * Return <tt>true</tt> if a file which begins with the passed bytes is
+	 * in this format.
+	 *
+	 * @param header the first bytes of the file.
+	 * @param length the number of bytes of the header that were read, which
+	 * 		may be fewer than its length for a short file.
+	 * @return <tt>true</tt> if the file is in this format; otherwise
+	 * 		<tt>false</tt>.
+	 */
+	boolean matches(byte[] header, int length);
+
+	/**
+	 * Returns a stream which decompresses the passed stream, from its start.
+	 *
+	 * @param in the compressed stream.
+	 * @return the decompressed stream.
+	 * @throws IOException if the stream cannot be decompressed.
+	 */
+	InputStream decompress(InputStream in) throws IOException;
+}
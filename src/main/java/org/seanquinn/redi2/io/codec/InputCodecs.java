@@ -0,0 +1,99 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io.codec;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The registry of {@link InputCodec codecs}: gzip, followed by any that are
+ * discovered through the {@link ServiceLoader}.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public final class InputCodecs {
+
+	/** The number of bytes of a file read to recognise its format. */
+	private static final int HEADER_SIZE = 16;
+
+	private static final List<InputCodec> CODECS = loadCodecs();
+
+	private InputCodecs() {
+	}
+
+	/**
+	 * Returns every registered codec, in the order in which they are tried.
+	 *
+	 * @return the codecs.
+	 */
+	public static List<InputCodec> getCodecs() {
+		return CODECS;
+	}
+
+	/**
+	 * Returns the codec of the file at the passed path, or {@code null} if
+	 * the file is not compressed in any registered format.
+	 *
+	 * @param path the path to the file.
+	 * @return the codec, or {@code null}.
+	 * @throws java.io.FileNotFoundException if the file does not exist.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static InputCodec detect(final String path) throws IOException {
+		final byte[] header = new byte[HEADER_SIZE];
+		int length = 0;
+		final InputStream in = new FileInputStream(path);
+		try {
+			int n;
+			while (length < header.length && (n = in.read(header, length, header.length - length)) >= 0) {
+				length += n;
+			}
+		}
+		finally {
+			in.close();
+		}
+
+		for (final InputCodec codec : CODECS) {
+			if (codec.matches(header, length)) {
+				return codec;
+			}
+		}
+		return null;
+	}
+
+	private static List<InputCodec> loadCodecs() {
+		final List<InputCodec> codecs = new ArrayList<InputCodec>();
+		codecs.add(new GzipInputCodec());
+		for (final InputCodec codec : ServiceLoader.load(InputCodec.class, InputCodecs.class.getClassLoader())) {
+			codecs.add(codec);
+		}
+		return Collections.unmodifiableList(codecs);
+	}
+}
@@ -0,0 +1,65 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.report;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+
+/**
+ * An implementation of the {@link ReportSink} which writes to the standard
+ * output stream.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class ConsoleReportSink extends WriterReportSink {
+
+	/**
+	 * Instantiates a new sink which writes to {@code System.out}.
+	 */
+	public ConsoleReportSink() {
+		this(System.out);
+	}
+
+	/**
+	 * Instantiates a new sink which writes to the passed stream.
+	 *
+	 * @param out the stream.
+	 */
+	public ConsoleReportSink(final PrintStream out) {
+		super(new OutputStreamWriter(out), DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The standard output stream is only flushed, and is left open.
+	 * </p>
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+}
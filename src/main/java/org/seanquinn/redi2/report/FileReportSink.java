@@ -0,0 +1,47 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.report;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * An implementation of the {@link ReportSink} which writes to a file.
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public class FileReportSink extends WriterReportSink {
+
+	/**
+	 * Instantiates a new sink which writes to the file at the passed path,
+	 * replacing it if it already exists.
+	 *
+	 * @param path the path to the file.
+	 * @throws IOException if the file cannot be created.
+	 */
+	public FileReportSink(final String path) throws IOException {
+		super(new FileWriter(path), DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL);
+	}
+}
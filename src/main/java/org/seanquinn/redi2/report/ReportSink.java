@@ -0,0 +1,82 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.report;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+
+import org.seanquinn.redi2.domain.BillingReport;
+
+/**
+ * Contract for the destination to which invoices and totals are written.
+ * <p>
+ * Implementations must be thread-safe; each invoice is written whole, and is
+ * never interleaved with another.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public interface ReportSink extends Flushable, Closeable {
+
+	/**
+	 * Writes the invoice for a single billing report.
+	 *
+	 * @param report the billing report.
+	 * @throws IOException if the invoice cannot be written.
+	 */
+	void writeInvoice(BillingReport report) throws IOException;
+
+	/**
+	 * Writes the total amount billed as well as the average charge per
+	 * customer, and flushes the sink.
+	 *
+	 * @param total the total amount billed.
+	 * @param average the average charge per customer.
+	 * @throws IOException if the totals cannot be written.
+	 */
+	void writeTotals(BigDecimal total, BigDecimal average) throws IOException;
+
+	/**
+	 * Writes a heading, e.g. to introduce the invoices of one of several
+	 * files.
+	 *
+	 * @param title the title of the heading.
+	 * @throws IOException if the heading cannot be written.
+	 */
+	void writeHeading(String title) throws IOException;
+
+	/**
+	 * Writes everything the passed {@link Reader} holds, as it is; e.g. the
+	 * output of another sink.
+	 *
+	 * @param reader the reader, which is read to its end but not closed.
+	 * @throws IOException if the reader cannot be read, or the sink cannot be
+	 * 		written.
+	 */
+	void writeAll(Reader reader) throws IOException;
+}
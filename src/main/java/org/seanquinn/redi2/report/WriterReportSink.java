@@ -0,0 +1,169 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.utils.CurrencyUtils;
+
+/**
+ * Base implementation of the {@link ReportSink} which renders invoices into
+ * a large buffered {@link Writer}.
+ * <p>
+ * Invoices are rendered exactly as {@code MessageFormat.format} and
+ * {@code System.out.println} would render them, line by line, but the
+ * templates are compiled once per sink, each invoice takes a single lock,
+ * and the writer is only flushed after every {@code flushInterval} invoices
+ * (and after the totals) rather than after every line.
+ * </p>
+ *
+ * @author Sean.Quinn
+ * @since 1.0
+ */
+public abstract class WriterReportSink implements ReportSink {
+
+	/** The default size of the buffer, in characters. */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/** The default number of invoices written between flushes. */
+	public static final int DEFAULT_FLUSH_INTERVAL = 1024;
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private final Writer writer;
+
+	private final int flushInterval;
+
+	private final NumberFormat hoursFormat;
+
+	private final MessageFormat totalTemplate;
+
+	private final MessageFormat averageTemplate;
+
+	private final StringBuilder invoice = new StringBuilder(256);
+
+	private int unflushed;
+
+	/**
+	 * Instantiates a new sink which buffers the passed {@link Writer},
+	 * flushing it after every {@code flushInterval} invoices.
+	 *
+	 * @param writer the writer.
+	 * @param bufferSize the size of the buffer, in characters.
+	 * @param flushInterval the number of invoices written between flushes.
+	 */
+	protected WriterReportSink(final Writer writer, final int bufferSize, final int flushInterval) {
+		if (flushInterval < 1) {
+			throw new IllegalArgumentException("The flush interval must be at least one invoice.");
+		}
+		this.writer = new BufferedWriter(writer, bufferSize);
+		this.flushInterval = flushInterval;
+
+		// ** The same formats that MessageFormat.format would create for each line.
+		final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		this.hoursFormat = NumberFormat.getInstance(locale);
+		this.totalTemplate = new MessageFormat("\nTOTAL BILLED: {0}", locale);
+		this.averageTemplate = new MessageFormat("AVG. CHARGE PER CUSTOMER: {0}", locale);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void writeInvoice(final BillingReport report) throws IOException {
+		invoice.setLength(0);
+		invoice.append("INVOICE").append(LINE_SEPARATOR);
+		invoice.append("==========================").append(LINE_SEPARATOR);
+		invoice.append("Report ID:     ").append(report.getUuidAsString()).append(LINE_SEPARATOR);
+		invoice.append("Billed For:    ").append(hoursFormat.format(report.getEngagement().getHours()))
+				.append(" hrs.").append(LINE_SEPARATOR);
+		invoice.append("Amount Billed: ").append(report.getBilledAsCurrency()).append(LINE_SEPARATOR);
+		invoice.append('\n').append(LINE_SEPARATOR);
+		writer.append(invoice);
+
+		if (++unflushed == flushInterval) {
+			flush();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void writeTotals(final BigDecimal total, final BigDecimal average) throws IOException {
+		writer.write(totalTemplate.format(new Object[] { CurrencyUtils.asCurrency(total.doubleValue()) }));
+		writer.write(LINE_SEPARATOR);
+		writer.write(averageTemplate.format(new Object[] { CurrencyUtils.asCurrency(average.doubleValue()) }));
+		writer.write(LINE_SEPARATOR);
+		flush();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void writeHeading(final String title) throws IOException {
+		writer.write("==========================");
+		writer.write(LINE_SEPARATOR);
+		writer.write(title);
+		writer.write(LINE_SEPARATOR);
+		writer.write("==========================");
+		writer.write(LINE_SEPARATOR);
+		writer.write(LINE_SEPARATOR);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void writeAll(final Reader reader) throws IOException {
+		final char[] buffer = new char[8192];
+		int n;
+		while ((n = reader.read(buffer)) >= 0) {
+			writer.write(buffer, 0, n);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void flush() throws IOException {
+		writer.flush();
+		unflushed = 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Flushes and closes the underlying writer.
+	 * </p>
+	 */
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
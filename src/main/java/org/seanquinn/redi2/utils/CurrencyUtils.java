@@ -23,17 +23,125 @@
  */
 package org.seanquinn.redi2.utils;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.text.NumberFormat;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /**
- * Utility class for formatting numbers as currency.
+ * Utility class for formatting numbers as currency, and for converting
+ * amounts to and from a whole number of cents.
  *
  * @author Sean.Quinn
  * @since 1.0
  */
 public class CurrencyUtils {
 
+	/**
+	 * The number of cents in one dollar.
+	 */
+	public static final long CENTS_PER_DOLLAR = 100;
+
+	/**
+	 * The magnitude below which {@link #toCents(double)} rounds without
+	 * resorting to {@code BigDecimal}; a value this small has at least one
+	 * bit of fraction left once it has been multiplied by one hundred.
+	 */
+	private static final double MAX_FAST_CENTS_VALUE = 1e13;
+
+	/**
+	 * The factor used to split a {@code double} into two halves of 26 bits
+	 * (Veltkamp's splitting; 2<sup>27</sup> + 1).
+	 */
+	private static final double SPLITTER = 134217729.0;
+
+	/**
+	 * The number of cents below which {@link #asCurrencyFromCents(long, Locale)}
+	 * formats US dollars without a {@code NumberFormat}; an amount this small
+	 * has no more than fifteen significant digits, so it is formatted the
+	 * same from a {@code double} as it is from its cents.
+	 */
+	private static final long MAX_FAST_FORMAT_CENTS = 1000000000000000L;
+
+	/**
+	 * The currency formatters of each thread, by {@link Locale}. A
+	 * {@code NumberFormat} is expensive to create but is not thread-safe, so
+	 * each thread creates (and then reuses) its own.
+	 */
+	private static final ThreadLocal<Map<Locale, NumberFormat>> FORMATTERS = new ThreadLocal<Map<Locale, NumberFormat>>() {
+		@Override
+		protected Map<Locale, NumberFormat> initialValue() {
+			return new HashMap<Locale, NumberFormat>();
+		}
+	};
+
+	/**
+	 * Rounds the passed amount to a whole number of cents, rounding half up;
+	 * the result is always the unscaled value of
+	 * {@code new BigDecimal(value).setScale(2, RoundingMode.HALF_UP)}, but is
+	 * computed without allocating.
+	 * <p>
+	 * The exact binary value of the amount is rounded, rather than its
+	 * product with one hundred (which may itself have been rounded); the
+	 * rounding error of that product is recovered exactly with Dekker's
+	 * product and used to decide values which appear to fall on a half cent.
+	 * </p>
+	 *
+	 * @param value the amount, in dollars.
+	 * @return the amount, in cents.
+	 * @throws NumberFormatException if the amount is infinite or not a number.
+	 * @throws ArithmeticException if the amount does not fit in a
+	 * 		{@code long} number of cents.
+	 */
+	public static long toCents(final double value) {
+		final double magnitude = Math.abs(value);
+		if (!(magnitude < MAX_FAST_CENTS_VALUE)) {
+			return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+		}
+
+		// ** magnitude * 100 == product + error, exactly.
+		final double product = magnitude * CENTS_PER_DOLLAR;
+		final double split = SPLITTER * magnitude;
+		final double high = split - (split - magnitude);
+		final double low = magnitude - high;
+		final double error = (high * CENTS_PER_DOLLAR - product) + low * CENTS_PER_DOLLAR;
+
+		final double whole = Math.floor(product);
+		final double fraction = product - whole;
+
+		long cents = (long) whole;
+		if (fraction > 0.5 || (fraction == 0.5 && error >= 0.0)) {
+			cents++;
+		}
+		return value < 0.0 ? -cents : cents;
+	}
+
+	/**
+	 * Returns the passed amount, in dollars, as a number of cents; rounding
+	 * half a cent up.
+	 *
+	 * @param value the amount, in dollars.
+	 * @return the amount, in cents.
+	 * @throws ArithmeticException if the amount does not fit in a
+	 * 		{@code long} number of cents.
+	 */
+	public static long toCents(final BigDecimal value) {
+		return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	/**
+	 * Returns the passed number of cents as an amount, in dollars, with a
+	 * scale of two.
+	 *
+	 * @param cents the amount, in cents.
+	 * @return the amount, in dollars.
+	 */
+	public static BigDecimal fromCents(final long cents) {
+		return BigDecimal.valueOf(cents, 2);
+	}
+
 	/**
 	 * Formats the passed number in the default currency (US).
 	 *
@@ -52,7 +160,83 @@ public class CurrencyUtils {
 	 * @return the formatted result.
 	 */
 	public static String asCurrency(final double value, final Locale locale) {
-		NumberFormat formatter = NumberFormat.getCurrencyInstance(locale);
-		return formatter.format(value);
+		return getCurrencyFormatter(locale).format(value);
+	}
+
+	/**
+	 * Formats the passed number of cents in the default currency (US).
+	 *
+	 * @param cents the amount, in cents.
+	 * @return the formatted result.
+	 */
+	public static String asCurrencyFromCents(final long cents) {
+		return asCurrencyFromCents(cents, Locale.US);
+	}
+
+	/**
+	 * Formats the passed number of cents in the context of the passed
+	 * {@link Locale}; the result is the same as that of
+	 * {@link #asCurrency(double, Locale)} for the amount in dollars.
+	 * Non-negative amounts in US dollars (of less than ten trillion dollars)
+	 * are formatted directly from their digits, without a
+	 * {@code NumberFormat}.
+	 *
+	 * @param cents the amount, in cents.
+	 * @param locale the {@code Locale}.
+	 * @return the formatted result.
+	 */
+	public static String asCurrencyFromCents(final long cents, final Locale locale) {
+		if (cents >= 0 && cents < MAX_FAST_FORMAT_CENTS && Locale.US.equals(locale)) {
+			return formatDollars(cents);
+		}
+		return asCurrency(fromCents(cents).doubleValue(), locale);
+	}
+
+	/**
+	 * Formats a non-negative number of cents as US dollars, e.g.
+	 * {@code $1,234.56}.
+	 *
+	 * @param cents the amount, in cents.
+	 * @return the formatted result.
+	 */
+	private static String formatDollars(final long cents) {
+		final char[] buffer = new char[24];
+		int position = buffer.length;
+
+		final int fraction = (int) (cents % CENTS_PER_DOLLAR);
+		buffer[--position] = (char) ('0' + fraction % 10);
+		buffer[--position] = (char) ('0' + fraction / 10);
+		buffer[--position] = '.';
+
+		long dollars = cents / CENTS_PER_DOLLAR;
+		int digits = 0;
+		do {
+			if (digits > 0 && digits % 3 == 0) {
+				buffer[--position] = ',';
+			}
+			buffer[--position] = (char) ('0' + dollars % 10);
+			dollars /= 10;
+			digits++;
+		} while (dollars > 0);
+		buffer[--position] = '$';
+
+		return new String(buffer, position, buffer.length - position);
+	}
+
+	/**
+	 * Returns the current thread's currency formatter for the passed
+	 * {@link Locale}, creating it on first use.
+	 *
+	 * @param locale the {@code Locale}.
+	 * @return the formatter.
+	 */
+	private static NumberFormat getCurrencyFormatter(final Locale locale) {
+		final Map<Locale, NumberFormat> formatters = FORMATTERS.get();
+		NumberFormat formatter = formatters.get(locale);
+		if (formatter == null) {
+			formatter = NumberFormat.getCurrencyInstance(locale);
+			formatters.put(locale, formatter);
+		}
+		return formatter;
 	}
 }
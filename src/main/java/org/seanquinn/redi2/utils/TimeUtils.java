@@ -24,8 +24,7 @@
 package org.seanquinn.redi2.utils;
 
 /**
- * Utility class containing time-related utility methods (well, really just
- * properties right now).
+ * Utility class containing time-related utility methods.
  *
  * @author Sean.Quinn
  * @since 1.0
@@ -46,4 +45,25 @@ public class TimeUtils {
 	 * The number of milliseconds in one hour.
 	 */
 	public static final long ONE_HOUR_MS = ONE_MINUTE_MS * 60;
+
+	/**
+	 * Returns the number of whole minutes in the passed length of time.
+	 *
+	 * @param lengthMs the length of time, in milliseconds.
+	 * @return the number of whole minutes.
+	 */
+	public static double toMinutes(final long lengthMs) {
+		return lengthMs / ONE_MINUTE_MS;
+	}
+
+	/**
+	 * Returns the passed length of time in a fractional representation of
+	 * the number of hours.
+	 *
+	 * @param lengthMs the length of time, in milliseconds.
+	 * @return the number of hours.
+	 */
+	public static double toHours(final long lengthMs) {
+		return (double) lengthMs / (double) ONE_HOUR_MS;
+	}
 }
@@ -0,0 +1,106 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.billing.BillingStatistics;
+import org.seanquinn.redi2.billing.impl.BillingServiceImpl;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.domain.id.SequentialReportIdGenerator;
+import org.seanquinn.redi2.io.BufferedMinuteFileReader;
+import org.seanquinn.redi2.io.InputFiles;
+import org.seanquinn.redi2.report.WriterReportSink;
+
+public class MultiFileProcessorTest {
+
+	@Test
+	public void testProcess() throws IOException {
+		final File directory = File.createTempFile("redi2-shards-", "");
+		directory.delete();
+		directory.mkdir();
+		try {
+			final List<Double> all = new ArrayList<Double>();
+			for (int shard = 0; shard < 12; shard++) {
+				final FileWriter writer = new FileWriter(new File(directory, "shard-" + (char) ('a' + shard) + ".txt"));
+				for (int i = 0; i < 50 * shard; i++) {
+					final double minutes = (shard * 7919 + i * 104729) % 200000;
+					writer.write(minutes + "\n");
+					all.add(minutes);
+				}
+				writer.close();
+			}
+			final List<String> paths = InputFiles.resolve(directory.getPath());
+			Assert.assertThat(paths.size(), Matchers.is(12));
+			Assert.assertThat(InputFiles.resolve(directory.getPath() + File.separator + "shard-?.txt"),
+					Matchers.equalTo(paths));
+
+			// ** The output is the same however many files are processed at a time.
+			String expected = null;
+			for (final int jobs : Arrays.asList(1, 3, 12)) {
+				final StringWriter out = new StringWriter();
+				final BillingServiceImpl billingService = new BillingServiceImpl(
+						new BillingRuleFactory(), new SequentialReportIdGenerator(0));
+				final BillingStatistics statistics = new MultiFileProcessor(billingService,
+						new BufferedMinuteFileReader(), billingService.getRuleFactory(), jobs)
+						.process(paths, new StringReportSink(out));
+
+				Assert.assertThat(statistics.getCount(), Matchers.is((long) all.size()));
+				final String output = out.toString().replaceAll("Report ID: .*", "");
+				if (expected == null) {
+					expected = output;
+					Assert.assertThat(output.indexOf("shard-a.txt"), Matchers.lessThan(output.indexOf("shard-l.txt")));
+					Assert.assertThat(output, Matchers.containsString("ALL FILES (12)"));
+				}
+				Assert.assertThat("jobs " + jobs, output, Matchers.equalTo(expected));
+			}
+		}
+		finally {
+			for (final File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/**
+	 * A sink which writes to a {@link Writer}, e.g. a {@link StringWriter}.
+	 */
+	private static class StringReportSink extends WriterReportSink {
+
+		StringReportSink(final Writer writer) {
+			super(writer, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL);
+		}
+	}
+}
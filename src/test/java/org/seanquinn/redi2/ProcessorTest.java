@@ -23,11 +23,28 @@
  */
 package org.seanquinn.redi2;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
 import org.junit.Test;
+import org.seanquinn.redi2.billing.BillingStatistics;
+import org.seanquinn.redi2.billing.rejection.Rejection;
+import org.seanquinn.redi2.billing.rejection.RejectionReason;
+import org.seanquinn.redi2.billing.rejection.SamplingRejectionSink;
+import org.seanquinn.redi2.io.MinuteFileConverter;
 
 public class ProcessorTest {
 
@@ -52,6 +69,162 @@ public class ProcessorTest {
 		processor.process(path);
 	}
 
+	@Test
+	public void testStreamFile() throws IOException {
+		final Processor processor = new Processor();
+		final String path = getAsset("./_assets/sample");
+
+		final BillingStatistics streamed = processor.stream(path);
+		final BillingStatistics processed = processor.process(path);
+		Assert.assertThat(streamed.getCount(), Matchers.greaterThan(0L));
+		Assert.assertThat(streamed.getCount(), Matchers.is(processed.getCount()));
+		Assert.assertThat(streamed.getSum(), Matchers.equalTo(processed.getSum()));
+		Assert.assertThat(streamed.getMean(), Matchers.equalTo(processed.getMean()));
+	}
+
+	@Test
+	public void testFlightRecorderEvents() throws IOException {
+		final Processor processor = new Processor();
+		final String path = getAsset("./_assets/sample");
+		final File dump = File.createTempFile("redi2-", ".jfr");
+
+		final Recording recording = new Recording();
+		try {
+			recording.enable("org.seanquinn.redi2.FileRead");
+			recording.enable("org.seanquinn.redi2.BillingBatch");
+			recording.enable("org.seanquinn.redi2.Render");
+			recording.start();
+			final BillingStatistics statistics = processor.process(path);
+			recording.stop();
+			recording.dump(dump.toPath());
+
+			// ** One event of each type, for the whole file.
+			final Map<String, RecordedEvent> events = new HashMap<String, RecordedEvent>();
+			for (final RecordedEvent event : RecordingFile.readAllEvents(dump.toPath())) {
+				Assert.assertThat(events.put(event.getEventType().getName(), event), Matchers.nullValue());
+			}
+			final RecordedEvent read = events.get("org.seanquinn.redi2.FileRead");
+			Assert.assertThat(read.getString("path"), Matchers.is(path));
+			Assert.assertThat(read.getBoolean("streamed"), Matchers.is(false));
+
+			final RecordedEvent batch = events.get("org.seanquinn.redi2.BillingBatch");
+			Assert.assertThat(batch.getLong("engagements"), Matchers.is(read.getLong("engagements")));
+			Assert.assertThat(batch.getLong("billed"), Matchers.is(statistics.getCount()));
+			Assert.assertThat(batch.getLong("ruleSetVersion"), Matchers.is(1L));
+
+			final RecordedEvent render = events.get("org.seanquinn.redi2.Render");
+			Assert.assertThat(render.getLong("invoices"), Matchers.is(statistics.getCount()));
+			Assert.assertThat(render.getBoolean("totals"), Matchers.is(true));
+		}
+		finally {
+			recording.close();
+			dump.delete();
+		}
+	}
+
+	@Test
+	public void testProcessBinaryFile() throws IOException {
+		final Processor processor = new Processor();
+		final String path = getAsset("./_assets/sample");
+		final File binary = File.createTempFile("redi2-engagements-", ".bin");
+		try {
+			new MinuteFileConverter().convert(path, binary.getPath());
+
+			final BillingStatistics expected = processor.process(path);
+			for (final BillingStatistics actual : Arrays.asList(processor.process(binary.getPath()),
+					processor.stream(binary.getPath()))) {
+				Assert.assertThat(actual.getCount(), Matchers.is(expected.getCount()));
+				Assert.assertThat(actual.getSum(), Matchers.equalTo(expected.getSum()));
+			}
+		}
+		finally {
+			binary.delete();
+		}
+	}
+
+	@Test
+	public void testRejectUnparseableLines() throws IOException {
+		final File file = File.createTempFile("redi2-minutes-", ".txt");
+		try {
+			final FileOutputStream out = new FileOutputStream(file);
+			try {
+				out.write("12\nx\n7\nabc\n".getBytes("UTF-8"));
+			}
+			finally {
+				out.close();
+			}
+
+			final Processor processor = new Processor();
+			processor.process(file.getPath());
+			processor.stream(file.getPath());
+
+			final SamplingRejectionSink rejections = (SamplingRejectionSink) processor.getRejectionSink();
+			Assert.assertThat(rejections.getCount(RejectionReason.UNPARSEABLE), Matchers.is(4L));
+
+			final Rejection rejection = rejections.getSamples(RejectionReason.UNPARSEABLE).get(1);
+			Assert.assertThat(rejection.getSource(), Matchers.is(file.getPath()));
+			Assert.assertThat(rejection.getPosition(), Matchers.is(3L));
+			Assert.assertThat(rejection.getLine(), Matchers.is("abc"));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testRejectionPositions() throws IOException {
+		// ** A blank and an unparseable line before a negative engagement, and another after the first chunk.
+		final StringBuilder contents = new StringBuilder("10\n\nabc\n-5\n20\n");
+		for (int i = 5; i < 2000; i++) {
+			contents.append(i == 1500 ? "-1" : "30").append('\n');
+		}
+
+		final File file = File.createTempFile("redi2-minutes-", ".txt");
+		try {
+			final FileOutputStream out = new FileOutputStream(file);
+			try {
+				out.write(contents.toString().getBytes("UTF-8"));
+			}
+			finally {
+				out.close();
+			}
+
+			for (final boolean stream : new boolean[] { false, true }) {
+				final Processor processor = new Processor();
+				if (stream) {
+					processor.stream(file.getPath());
+				}
+				else {
+					processor.process(file.getPath());
+				}
+
+				final SamplingRejectionSink rejections = (SamplingRejectionSink) processor.getRejectionSink();
+				final List<Rejection> unparseable = rejections.getSamples(RejectionReason.UNPARSEABLE);
+				Assert.assertThat(unparseable.size(), Matchers.is(2));
+				Assert.assertThat(unparseable.get(0).getPosition(), Matchers.is(1L));
+				Assert.assertThat(unparseable.get(1).getPosition(), Matchers.is(2L));
+
+				final List<Rejection> negative = rejections.getSamples(RejectionReason.NEGATIVE_LENGTH);
+				Assert.assertThat(negative.size(), Matchers.is(2));
+				Assert.assertThat(negative.get(0).getSource(), Matchers.is(file.getPath()));
+				Assert.assertThat(negative.get(0).getPosition(), Matchers.is(3L));
+				Assert.assertThat(negative.get(1).getSource(), Matchers.is(file.getPath()));
+				Assert.assertThat(negative.get(1).getPosition(), Matchers.is(1500L));
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testStreamNonExistantFile() throws IOException {
+		final Processor processor = new Processor();
+		final String path = getAsset("./_assets/missing");
+
+		processor.stream(path);
+	}
+
 	private String getAsset(final String path) {
 		URL url = getClass().getResource(path);
 		return url != null ? url.getPath() : path;
@@ -0,0 +1,117 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.billing.impl.BillingServiceImpl;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class BillingStatisticsTest {
+
+	@Test
+	public void testAccept() {
+		final BillingRuleFactory ruleFactory = new BillingRuleFactory();
+		final BillingServiceImpl billingService = new BillingServiceImpl(ruleFactory);
+		final BillingStatistics statistics = new BillingStatistics(ruleFactory);
+
+		BigDecimal total = BigDecimal.ZERO;
+		BigDecimal min = null;
+		BigDecimal max = null;
+		long count = 0;
+		for (long minutes = 0; minutes < 200000; minutes += 333) {
+			final BillingReport report = billingService.process(new Engagement(minutes * TimeUtils.ONE_MINUTE_MS));
+			statistics.accept(report);
+			total = total.add(report.getBilled());
+			min = min == null ? report.getBilled() : min.min(report.getBilled());
+			max = max == null ? report.getBilled() : max.max(report.getBilled());
+			count++;
+		}
+
+		Assert.assertThat(statistics.getCount(), Matchers.is(count));
+		Assert.assertThat(statistics.getSum(), Matchers.comparesEqualTo(total));
+		Assert.assertThat(statistics.getMin(), Matchers.comparesEqualTo(min));
+		Assert.assertThat(statistics.getMax(), Matchers.comparesEqualTo(max));
+		Assert.assertThat(statistics.getMean(),
+				Matchers.equalTo(total.divide(new BigDecimal(count), 2, RoundingMode.HALF_UP)));
+
+		// ** Engagements under 1000 minutes are short, and under 100000 are medium.
+		Assert.assertThat(statistics.getCount(0), Matchers.is(4L));
+		Assert.assertThat(statistics.getCount(1), Matchers.is(297L));
+		Assert.assertThat(statistics.getCount(2), Matchers.is(count - 301));
+		Assert.assertThat(statistics.getSum(0).add(statistics.getSum(1)).add(statistics.getSum(2)),
+				Matchers.comparesEqualTo(total));
+	}
+
+	@Test
+	public void testCombine() {
+		final BillingRuleFactory ruleFactory = new BillingRuleFactory();
+		final BillingStatistics all = new BillingStatistics(ruleFactory);
+		final BillingStatistics even = new BillingStatistics(ruleFactory);
+		final BillingStatistics odd = new BillingStatistics(ruleFactory);
+		for (int i = 0; i < 1000; i++) {
+			final long lengthMs = i * 200L * TimeUtils.ONE_MINUTE_MS;
+			all.accept(lengthMs, i * 7L);
+			(i % 2 == 0 ? even : odd).accept(lengthMs, i * 7L);
+		}
+
+		final BillingStatistics combined = new BillingStatistics(ruleFactory).combine(even).combine(odd);
+		Assert.assertThat(combined.getCount(), Matchers.is(all.getCount()));
+		Assert.assertThat(combined.getSum(), Matchers.equalTo(all.getSum()));
+		Assert.assertThat(combined.getMin(), Matchers.equalTo(all.getMin()));
+		Assert.assertThat(combined.getMax(), Matchers.equalTo(all.getMax()));
+		Assert.assertThat(combined.getMean(), Matchers.equalTo(all.getMean()));
+		for (int tier = 0; tier < combined.getTierCount(); tier++) {
+			Assert.assertThat(combined.getCount(tier), Matchers.is(all.getCount(tier)));
+			Assert.assertThat(combined.getSum(tier), Matchers.equalTo(all.getSum(tier)));
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		final BillingStatistics statistics = new BillingStatistics(new BillingRuleFactory());
+		Assert.assertThat(statistics.getCount(), Matchers.is(0L));
+		Assert.assertThat(statistics.getSum(), Matchers.comparesEqualTo(BigDecimal.ZERO));
+		Assert.assertThat(statistics.getMin(), Matchers.nullValue());
+		Assert.assertThat(statistics.getMean(), Matchers.nullValue());
+		Assert.assertThat(statistics.getMean(1), Matchers.nullValue());
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testCombineOverflow() {
+		final BillingRuleFactory ruleFactory = new BillingRuleFactory();
+		final BillingStatistics statistics = new BillingStatistics(ruleFactory);
+		statistics.accept(TimeUtils.ONE_MINUTE_MS, Long.MAX_VALUE / 2 + 1);
+		final BillingStatistics other = new BillingStatistics(ruleFactory);
+		other.accept(TimeUtils.ONE_MINUTE_MS, Long.MAX_VALUE / 2 + 1);
+		statistics.combine(other);
+	}
+}
@@ -25,6 +25,7 @@ package org.seanquinn.redi2.billing.discount;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.List;
 
 import org.hamcrest.Matchers;
 import org.junit.Assert;
@@ -45,4 +46,21 @@ public class DigitAdditiveDiscountCalculatorTest {
 
 		Assert.assertThat(actual, Matchers.is(expected.setScale(2, RoundingMode.HALF_UP)));
 	}
+
+	@Test
+	public void testGetDigitSum() {
+		final DigitAdditiveDiscountCalculator calculator = new DigitAdditiveDiscountCalculator();
+		Assert.assertThat(calculator.getDigitSum(0.0), Matchers.is(0));
+		Assert.assertThat(calculator.getDigitSum(409.9), Matchers.is(13));
+		Assert.assertThat(calculator.getDigitSum(-409.0), Matchers.is(0));
+
+		for (int minutes = 0; minutes < 100000; minutes++) {
+			int expected = 0;
+			final List<Integer> digits = calculator.getDigits(minutes);
+			for (final Integer digit : digits) {
+				expected += digit;
+			}
+			Assert.assertThat(calculator.getDigitSum(minutes), Matchers.is(expected));
+		}
+	}
 }
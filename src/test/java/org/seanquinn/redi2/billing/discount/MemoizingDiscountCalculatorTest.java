@@ -0,0 +1,77 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.discount;
+
+import java.math.BigDecimal;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class MemoizingDiscountCalculatorTest {
+
+	@Test
+	public void testCalculateDiscount() {
+		final DiscountCalculator delegate = new SquareRootDiscountCalculator();
+		final MemoizingDiscountCalculator calculator = new MemoizingDiscountCalculator(delegate);
+
+		final Engagement engagement = new Engagement(4000 * TimeUtils.ONE_MINUTE_MS);
+		final BigDecimal first = calculator.calculateDiscount(engagement);
+		Assert.assertThat(first, Matchers.equalTo(delegate.calculateDiscount(engagement)));
+		Assert.assertThat(calculator.getMisses(), Matchers.is(1L));
+		Assert.assertThat(calculator.getHits(), Matchers.is(0L));
+
+		// ** The same, shared, discount is returned for a repeated length.
+		Assert.assertThat(calculator.calculateDiscount(new Engagement(4000 * TimeUtils.ONE_MINUTE_MS)),
+				Matchers.sameInstance(first));
+		Assert.assertThat(calculator.calculateDiscountInCents(4000 * TimeUtils.ONE_MINUTE_MS),
+				Matchers.is(first.unscaledValue().longValue()));
+		Assert.assertThat(calculator.getMisses(), Matchers.is(1L));
+		Assert.assertThat(calculator.getHits(), Matchers.is(2L));
+	}
+
+	@Test
+	public void testCollisions() {
+		final DiscountCalculator delegate = new SquareRootDiscountCalculator();
+		final MemoizingDiscountCalculator calculator = new MemoizingDiscountCalculator(delegate, 64);
+
+		for (int pass = 0; pass < 2; pass++) {
+			for (long minutes = 1000; minutes < 3000; minutes += 7) {
+				// ** Fractional lengths share a slot with their whole minute.
+				for (long lengthMs = minutes * TimeUtils.ONE_MINUTE_MS; lengthMs < (minutes + 1) * TimeUtils.ONE_MINUTE_MS; lengthMs += 25000) {
+					Assert.assertThat(calculator.calculateDiscountInCents(lengthMs),
+							Matchers.is(delegate.calculateDiscountInCents(lengthMs)));
+				}
+			}
+		}
+		Assert.assertThat(calculator.getHits() + calculator.getMisses(), Matchers.is(2L * 286 * 3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCapacity() {
+		new MemoizingDiscountCalculator(new SquareRootDiscountCalculator(), 1000);
+	}
+}
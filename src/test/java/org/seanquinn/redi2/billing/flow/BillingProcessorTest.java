@@ -0,0 +1,209 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.impl.BillingServiceImpl;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class BillingProcessorTest {
+
+	@Test
+	public void testProcess() throws Exception {
+		final BillingService billingService = new BillingServiceImpl();
+		final BillingProcessor processor = new BillingProcessor(billingService, ForkJoinPool.commonPool(), 8, 4);
+		final CollectingSubscriber subscriber = new CollectingSubscriber();
+		processor.subscribe(subscriber);
+
+		final List<Engagement> engagements = new ArrayList<Engagement>();
+		final SubmissionPublisher<Engagement> publisher = new SubmissionPublisher<Engagement>(
+				ForkJoinPool.commonPool(), 8);
+		publisher.subscribe(processor);
+		for (long minutes = 0; minutes < 5000; minutes += 3) {
+			final Engagement engagement = new Engagement(minutes * TimeUtils.ONE_MINUTE_MS + 567);
+			engagements.add(engagement);
+			publisher.submit(engagement);
+		}
+		// ** A negative engagement is skipped, and does not terminate the stream.
+		publisher.submit(new Engagement(-400 * TimeUtils.ONE_MINUTE_MS));
+		publisher.close();
+
+		Assert.assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+		Assert.assertThat(subscriber.error, Matchers.nullValue());
+		Assert.assertThat(subscriber.reports.size(), Matchers.is(engagements.size()));
+		for (int i = 0; i < engagements.size(); i++) {
+			final BillingReport report = subscriber.reports.get(i);
+			Assert.assertThat(report.getEngagement(), Matchers.sameInstance(engagements.get(i)));
+			Assert.assertThat(report.getBilled(), Matchers.equalTo(billingService.quote(engagements.get(i))));
+		}
+	}
+
+	@Test
+	public void testError() throws Exception {
+		final BillingProcessor processor = new BillingProcessor();
+		final CollectingSubscriber subscriber = new CollectingSubscriber();
+		processor.subscribe(subscriber);
+
+		final SubmissionPublisher<Engagement> publisher = new SubmissionPublisher<Engagement>();
+		publisher.subscribe(processor);
+		publisher.submit(new Engagement(TimeUtils.ONE_MINUTE_MS));
+		publisher.closeExceptionally(new IllegalStateException("upstream failed"));
+
+		Assert.assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+		Assert.assertThat(subscriber.error, Matchers.instanceOf(IllegalStateException.class));
+	}
+
+	@Test
+	public void testLateSubscription() throws Exception {
+		final BillingProcessor processor = new BillingProcessor();
+		final SubmissionPublisher<Engagement> publisher = new SubmissionPublisher<Engagement>();
+		publisher.subscribe(processor);
+		for (long minutes = 1; minutes <= 10; minutes++) {
+			publisher.submit(new Engagement(minutes * TimeUtils.ONE_MINUTE_MS));
+		}
+		publisher.close();
+
+		// ** Give the processor every chance to bill (and drop) the engagements before anyone subscribes.
+		Thread.sleep(100);
+
+		final CollectingSubscriber subscriber = new CollectingSubscriber();
+		processor.subscribe(subscriber);
+		Assert.assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+		Assert.assertThat(subscriber.reports.size(), Matchers.is(10));
+	}
+
+	@Test
+	public void testRequestsDeferredUntilSubscribed() {
+		final BillingProcessor processor = new BillingProcessor(new BillingServiceImpl(),
+				ForkJoinPool.commonPool(), 8, 4);
+		final RecordingSubscription upstream = new RecordingSubscription();
+		processor.onSubscribe(upstream);
+		Assert.assertThat(upstream.requested, Matchers.is(0L));
+
+		processor.subscribe(new CollectingSubscriber());
+		processor.subscribe(new CollectingSubscriber());
+		Assert.assertThat(upstream.requested, Matchers.is(4L));
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		final BillingProcessor processor = new BillingProcessor();
+		final RecordingSubscription upstream = new RecordingSubscription();
+		processor.onSubscribe(upstream);
+
+		final CollectingSubscriber first = new CollectingSubscriber();
+		final CollectingSubscriber second = new CollectingSubscriber();
+		processor.subscribe(first);
+		processor.subscribe(second);
+		Assert.assertTrue(first.subscribed.await(30, TimeUnit.SECONDS));
+		Assert.assertTrue(second.subscribed.await(30, TimeUnit.SECONDS));
+
+		// ** Upstream is cancelled only once every subscriber has cancelled.
+		first.subscription.cancel();
+		Assert.assertThat(upstream.cancelled, Matchers.is(false));
+		second.subscription.cancel();
+		Assert.assertThat(upstream.cancelled, Matchers.is(true));
+		Assert.assertThat(processor.isClosed(), Matchers.is(true));
+
+		// ** Engagements still in flight are ignored.
+		processor.onNext(new Engagement(TimeUtils.ONE_MINUTE_MS));
+	}
+
+	@Test
+	public void testClose() {
+		final BillingProcessor processor = new BillingProcessor();
+		final RecordingSubscription upstream = new RecordingSubscription();
+		processor.onSubscribe(upstream);
+		processor.subscribe(new CollectingSubscriber());
+
+		processor.close();
+		Assert.assertThat(upstream.cancelled, Matchers.is(true));
+	}
+
+	/**
+	 * A subscription to upstream which records what was requested of it.
+	 */
+	private static class RecordingSubscription implements Flow.Subscription {
+
+		private volatile long requested;
+
+		private volatile boolean cancelled;
+
+		public void request(final long n) {
+			requested += n;
+		}
+
+		public void cancel() {
+			cancelled = true;
+		}
+	}
+
+	/**
+	 * A subscriber which requests one report at a time, and collects them.
+	 */
+	private static class CollectingSubscriber implements Flow.Subscriber<BillingReport> {
+
+		private final List<BillingReport> reports = new ArrayList<BillingReport>();
+
+		private final CountDownLatch subscribed = new CountDownLatch(1);
+
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		private volatile Throwable error;
+
+		private volatile Flow.Subscription subscription;
+
+		public void onSubscribe(final Flow.Subscription subscription) {
+			(this.subscription = subscription).request(1);
+			subscribed.countDown();
+		}
+
+		public void onNext(final BillingReport report) {
+			reports.add(report);
+			subscription.request(1);
+		}
+
+		public void onError(final Throwable throwable) {
+			error = throwable;
+			done.countDown();
+		}
+
+		public void onComplete() {
+			done.countDown();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class AsyncBillingServiceImplTest {
+
+	@Test
+	public void testProcessAsync() throws Exception {
+		final BillingService delegate = new BillingServiceImpl();
+		final AsyncBillingServiceImpl service = new AsyncBillingServiceImpl(delegate);
+
+		final List<Engagement> engagements = new ArrayList<Engagement>();
+		for (long minutes = 0; minutes < 2000; minutes += 7) {
+			engagements.add(new Engagement(minutes * TimeUtils.ONE_MINUTE_MS + 1234));
+		}
+
+		final List<BillingReport> reports = service.processAsync(engagements).get();
+		Assert.assertThat(reports.size(), Matchers.is(engagements.size()));
+		for (int i = 0; i < reports.size(); i++) {
+			final Engagement engagement = engagements.get(i);
+			Assert.assertThat(reports.get(i).getEngagement(), Matchers.sameInstance(engagement));
+			Assert.assertThat(reports.get(i).getBilled(), Matchers.equalTo(delegate.quote(engagement)));
+			Assert.assertThat(service.quoteAsync(engagement).get(), Matchers.equalTo(delegate.quote(engagement)));
+			Assert.assertThat(service.processAsync(engagement).get().getBilled(), Matchers.equalTo(delegate.quote(engagement)));
+		}
+		service.shutdown();
+	}
+
+	@Test
+	public void testExecutor() throws Exception {
+		final AtomicInteger tasks = new AtomicInteger();
+		final AsyncBillingServiceImpl service = new AsyncBillingServiceImpl(new BillingServiceImpl(), new Executor() {
+			public void execute(final Runnable command) {
+				tasks.incrementAndGet();
+				command.run();
+			}
+		});
+
+		service.quoteAsync(new Engagement(TimeUtils.ONE_MINUTE_MS)).get();
+		service.processAsync(new Engagement(TimeUtils.ONE_MINUTE_MS)).get();
+		Assert.assertThat(tasks.get(), Matchers.is(2));
+	}
+
+	@Test
+	public void testInvalidEngagement() throws Exception {
+		final AsyncBillingServiceImpl service = new AsyncBillingServiceImpl();
+		try {
+			service.processAsync(new Engagement(-400 * TimeUtils.ONE_MINUTE_MS)).get();
+			Assert.fail("Expected the future to complete exceptionally.");
+		}
+		catch (final ExecutionException ex) {
+			Assert.assertThat(ex.getCause(), Matchers.instanceOf(IllegalArgumentException.class));
+		}
+		finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testShutdownLeavesPassedExecutor() throws Exception {
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final AsyncBillingServiceImpl service = new AsyncBillingServiceImpl(new BillingServiceImpl(), executor);
+			service.shutdown();
+			Assert.assertThat(executor.isShutdown(), Matchers.is(false));
+			service.quoteAsync(new Engagement(TimeUtils.ONE_MINUTE_MS)).get();
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -27,14 +27,29 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Test;
 import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.metrics.DefaultBillingMetrics;
+import org.seanquinn.redi2.billing.rejection.Rejection;
+import org.seanquinn.redi2.billing.rejection.RejectionReason;
+import org.seanquinn.redi2.billing.rejection.SamplingRejectionSink;
+import org.seanquinn.redi2.billing.rule.BillingRule;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.billing.rule.BillingTier;
+import org.seanquinn.redi2.billing.rule.CostTable;
+import org.seanquinn.redi2.billing.rule.DynamicBillingRule;
+import org.seanquinn.redi2.billing.rule.RuleSetRegistry;
 import org.seanquinn.redi2.domain.BillingReport;
 import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.domain.id.RandomReportIdGenerator;
 import org.seanquinn.redi2.utils.TimeUtils;
 
 public class BillingServiceImplTest {
@@ -132,4 +147,194 @@ public class BillingServiceImplTest {
 		Assert.assertThat(actual, Matchers.not(Matchers.empty()));
 		Assert.assertThat(actual.size(), Matchers.is(3));
 	}
+
+	@Test
+	public void testProcessRejectsInvalidEngagements() {
+		final List<Engagement> engagements = new ArrayList<Engagement>();
+		engagements.add(new Engagement(400 * TimeUtils.ONE_MINUTE_MS));
+		engagements.add(new Engagement(-400 * TimeUtils.ONE_MINUTE_MS));
+		engagements.add(new Engagement(4000 * TimeUtils.ONE_MINUTE_MS));
+
+		final BillingServiceImpl service = new BillingServiceImpl();
+		final SamplingRejectionSink rejections = new SamplingRejectionSink();
+		service.setRejectionSink(rejections);
+
+		final List<BillingReport> reports = service.process(engagements);
+		Assert.assertThat(reports.size(), Matchers.is(2));
+		Assert.assertThat(rejections.getCount(), Matchers.is(1L));
+
+		final Rejection rejection = rejections.getSamples(RejectionReason.NEGATIVE_LENGTH).get(0);
+		Assert.assertThat(rejection.getPosition(), Matchers.is(1L));
+		Assert.assertThat(rejection.getEngagement(), Matchers.sameInstance(engagements.get(1)));
+	}
+
+	@Test
+	public void testQuoteWithRuleFactory() {
+		final BillingRuleFactory factory = new BillingRuleFactory() {
+			@Override
+			public BillingRule getRule(final Engagement engagement) {
+				return new DynamicBillingRule(1.5);
+			}
+		};
+		final BillingService service = new BillingServiceImpl(factory);
+		final Engagement engagement = new Engagement(400 * TimeUtils.ONE_MINUTE_MS);
+
+		BigDecimal actual = service.quote(engagement);
+		BigDecimal expected = new BigDecimal(600.0);
+		Assert.assertThat(actual, Matchers.equalTo(expected.setScale(2, RoundingMode.HALF_UP)));
+	}
+
+	@Test
+	public void testBillBatch() {
+		final long[] lengthsMs = new long[3000];
+		for (int i = 0; i < lengthsMs.length; i++) {
+			// ** Runs of short, medium and long engagements, with fractional minutes.
+			lengthsMs[i] = (i * 977L) * (i % 7 == 0 ? 100 : 1) * TimeUtils.ONE_MINUTE_MS / 3 + i;
+		}
+		final long[] outCents = new long[lengthsMs.length];
+
+		final BillingServiceImpl service = new BillingServiceImpl();
+		final long total = service.billBatch(lengthsMs, outCents);
+
+		BigDecimal expectedTotal = BigDecimal.ZERO.setScale(2);
+		for (int i = 0; i < lengthsMs.length; i++) {
+			final BigDecimal expected = service.quote(new Engagement(lengthsMs[i]));
+			Assert.assertThat(BigDecimal.valueOf(outCents[i], 2), Matchers.equalTo(expected));
+			expectedTotal = expectedTotal.add(expected);
+		}
+		Assert.assertThat(BigDecimal.valueOf(total, 2), Matchers.equalTo(expectedTotal));
+	}
+
+	@Test
+	public void testBillBatchInvalidEngagement() {
+		final long[] lengthsMs = { 400 * TimeUtils.ONE_MINUTE_MS, -400 * TimeUtils.ONE_MINUTE_MS };
+		final long[] outCents = new long[lengthsMs.length];
+
+		try {
+			new BillingServiceImpl().billBatch(lengthsMs, outCents);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException ex) {
+			Assert.assertThat(ex.getMessage(), Matchers.containsString("engagement 1 "));
+		}
+		Assert.assertThat(outCents[0], Matchers.is(0L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBillBatchShortOutput() {
+		new BillingServiceImpl().billBatch(new long[2], new long[1]);
+	}
+
+	@Test
+	public void testCostTable() {
+		final CostTable table = new CostTable(new BillingRuleFactory());
+		final BillingServiceImpl tabulated = new BillingServiceImpl(table, new RandomReportIdGenerator());
+		final BillingServiceImpl computed = new BillingServiceImpl(table.getRuleFactory());
+
+		final long[] lengthsMs = new long[3000];
+		for (int i = 0; i < lengthsMs.length; i++) {
+			// ** Whole minutes (covered by the table) interleaved with fractional minutes, in all three tiers.
+			lengthsMs[i] = (i * 977L) * (i % 7 == 0 ? 100 : 1) * TimeUtils.ONE_MINUTE_MS / 3 + (i % 5 == 0 ? i : 0);
+		}
+		final long[] expected = new long[lengthsMs.length];
+		final long expectedTotal = computed.billBatch(lengthsMs, expected);
+
+		// ** Before the table is built, every cost is computed.
+		Assert.assertThat(table.isReady(), Matchers.is(false));
+		Assert.assertThat(tabulated.quote(new Engagement(4000 * TimeUtils.ONE_MINUTE_MS)),
+				Matchers.equalTo(computed.quote(new Engagement(4000 * TimeUtils.ONE_MINUTE_MS))));
+
+		table.build();
+		final long[] actual = new long[lengthsMs.length];
+		Assert.assertThat(tabulated.billBatch(lengthsMs, actual), Matchers.is(expectedTotal));
+		for (int i = 0; i < lengthsMs.length; i++) {
+			Assert.assertThat(actual[i], Matchers.is(expected[i]));
+
+			final Engagement engagement = new Engagement(lengthsMs[i]);
+			Assert.assertThat(tabulated.quote(engagement), Matchers.equalTo(computed.quote(engagement)));
+		}
+	}
+
+	@Test
+	public void testReloadRuleSets() throws InterruptedException {
+		final RuleSetRegistry ruleSets = new RuleSetRegistry(ruleFactory(1));
+		final BillingServiceImpl service = new BillingServiceImpl(ruleSets, new RandomReportIdGenerator());
+		final long lengthMs = 10 * TimeUtils.ONE_MINUTE_MS;
+
+		final AtomicBoolean publishing = new AtomicBoolean(true);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final Thread biller = new Thread(new Runnable() {
+			public void run() {
+				try {
+					final long[] lengthsMs = new long[64];
+					final long[] costs = new long[lengthsMs.length];
+					Arrays.fill(lengthsMs, lengthMs);
+					while (publishing.get()) {
+						// ** Each report is billed by the rules of the version it is stamped with.
+						final BillingReport report = service.process(new Engagement(lengthMs));
+						Assert.assertThat(report.getBilled(), Matchers.equalTo(
+								new BillingServiceImpl(ruleFactory(report.getRuleSetVersion())).quote(new Engagement(lengthMs))));
+
+						// ** A batch is never billed by a mix of versions.
+						service.billBatch(lengthsMs, costs);
+						for (final long cost : costs) {
+							Assert.assertThat(cost, Matchers.is(costs[0]));
+						}
+					}
+				}
+				catch (final Throwable ex) {
+					failure.set(ex);
+				}
+			}
+		});
+		biller.start();
+		for (int version = 2; version <= 200; version++) {
+			Assert.assertThat(ruleSets.publish(ruleFactory(version)).getVersion(), Matchers.is((long) version));
+			Thread.yield();
+		}
+		publishing.set(false);
+		biller.join();
+		Assert.assertThat(failure.get(), Matchers.nullValue());
+
+		final BillingReport report = service.process(new Engagement(lengthMs));
+		Assert.assertThat(report.getRuleSetVersion(), Matchers.is(200L));
+		Assert.assertThat(service.getRuleFactory(), Matchers.sameInstance(ruleSets.getRuleSet().getRuleFactory()));
+	}
+
+	@Test
+	public void testMetrics() {
+		final CostTable table = new CostTable(new BillingRuleFactory(), 2000);
+		table.build();
+		final BillingServiceImpl service = new BillingServiceImpl(table, new RandomReportIdGenerator());
+		final DefaultBillingMetrics metrics = new DefaultBillingMetrics(1);
+		service.setMetrics(metrics);
+
+		final List<Engagement> engagements = new ArrayList<Engagement>();
+		engagements.add(new Engagement(400 * TimeUtils.ONE_MINUTE_MS));
+		engagements.add(new Engagement(4000 * TimeUtils.ONE_MINUTE_MS));
+		engagements.add(new Engagement(-1));
+		engagements.add(new Engagement(400000 * TimeUtils.ONE_MINUTE_MS));
+		Assert.assertThat(service.process(engagements).size(), Matchers.is(3));
+
+		// ** Whole minutes in the table (in two tiers), then beyond it.
+		final long[] lengthsMs = { 10 * TimeUtils.ONE_MINUTE_MS, 1500 * TimeUtils.ONE_MINUTE_MS,
+				3000 * TimeUtils.ONE_MINUTE_MS, 3001 * TimeUtils.ONE_MINUTE_MS, 200000 * TimeUtils.ONE_MINUTE_MS };
+		service.billBatch(lengthsMs, new long[lengthsMs.length]);
+
+		Assert.assertThat(metrics.getProcessedCount(), Matchers.is(8L));
+		Assert.assertThat(metrics.getProcessedCountByTier(), Matchers.equalTo(new long[] { 2, 4, 2 }));
+		Assert.assertThat(metrics.getErrorCount(), Matchers.is(1L));
+		Assert.assertThat(metrics.getBatchCount(), Matchers.is(2L));
+		Assert.assertThat(metrics.getMaxBatchSize(), Matchers.is(5L));
+		Assert.assertThat(metrics.getCostCalculationNanos().getCount(), Matchers.is(6L));
+		Assert.assertThat(metrics.getRuleResolutionNanos().getCount(), Matchers.is(4L));
+	}
+
+	/**
+	 * Returns a factory with a single tier, billed at a rate of {@code version}
+	 * per minute.
+	 */
+	private static BillingRuleFactory ruleFactory(final long version) {
+		return new BillingRuleFactory(Collections.singletonList(new BillingTier(0, version, 1.0, null)));
+	}
 }
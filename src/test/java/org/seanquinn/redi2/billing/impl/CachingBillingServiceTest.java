@@ -0,0 +1,95 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.billing.rule.BillingRuleFactory;
+import org.seanquinn.redi2.billing.rule.BillingTier;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class CachingBillingServiceTest {
+
+	@Test
+	public void testQuote() {
+		final BillingService delegate = new BillingServiceImpl();
+		final CachingBillingService service = new CachingBillingService(delegate);
+
+		for (int pass = 0; pass < 3; pass++) {
+			for (long minutes = 0; minutes < 2000; minutes += 3) {
+				final Engagement engagement = new Engagement(minutes * 97 * TimeUtils.ONE_MINUTE_MS + pass);
+				Assert.assertThat(service.quote(engagement), Matchers.equalTo(delegate.quote(engagement)));
+			}
+		}
+		Assert.assertThat(service.getMisses(), Matchers.is(3L * 667));
+		Assert.assertThat(service.getHits(), Matchers.is(0L));
+
+		final Engagement engagement = new Engagement(4000 * TimeUtils.ONE_MINUTE_MS);
+		final BigDecimal quote = service.quote(engagement);
+		Assert.assertThat(service.quote(new Engagement(4000 * TimeUtils.ONE_MINUTE_MS)), Matchers.sameInstance(quote));
+		Assert.assertThat(service.getHits(), Matchers.is(1L));
+		Assert.assertThat(service.getHitRatio(), Matchers.closeTo(1.0 / 2003, 1e-9));
+	}
+
+	@Test
+	public void testEviction() {
+		final CachingBillingService service = new CachingBillingService(new BillingServiceImpl(), 64, 4);
+		for (long minutes = 0; minutes < 1000; minutes++) {
+			service.quote(new Engagement(minutes * TimeUtils.ONE_MINUTE_MS));
+		}
+		Assert.assertThat(service.size(), Matchers.lessThanOrEqualTo(64));
+		Assert.assertThat(service.getEvictions(), Matchers.is(1000L - service.size()));
+
+		// ** The most recently quoted length is still held.
+		service.quote(new Engagement(999 * TimeUtils.ONE_MINUTE_MS));
+		Assert.assertThat(service.getHits(), Matchers.is(1L));
+	}
+
+	@Test
+	public void testPublishClearsCache() {
+		final BillingServiceImpl delegate = new BillingServiceImpl();
+		final CachingBillingService service = new CachingBillingService(delegate);
+		final Engagement engagement = new Engagement(400 * TimeUtils.ONE_MINUTE_MS);
+		final BigDecimal quote = service.quote(engagement);
+		Assert.assertThat(service.quote(engagement), Matchers.sameInstance(quote));
+
+		// ** A flat rate of two a minute.
+		delegate.getRuleSets().publish(new BillingRuleFactory(
+				Collections.singletonList(new BillingTier(0, 2.0, 1.0, null))));
+		Assert.assertThat(service.size(), Matchers.is(0));
+		Assert.assertThat(service.quote(engagement), Matchers.comparesEqualTo(new BigDecimal("800")));
+		Assert.assertThat(service.quote(engagement), Matchers.not(Matchers.comparesEqualTo(quote)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testQuoteInvalidEngagement() {
+		new CachingBillingService(new BillingServiceImpl()).quote(new Engagement(-400 * TimeUtils.ONE_MINUTE_MS));
+	}
+}
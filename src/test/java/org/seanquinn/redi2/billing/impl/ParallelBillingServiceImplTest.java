@@ -0,0 +1,73 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.billing.BillingService;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class ParallelBillingServiceImplTest {
+
+	@Test
+	public void testProcessEngagementsInOrder() {
+		final List<Engagement> engagements = new ArrayList<Engagement>();
+		for (int i = 0; i < 1000; i++) {
+			// ** Every tenth engagement is invalid and should be skipped.
+			final long minutes = i % 10 == 0 ? -(i + 1) : i * 397;
+			engagements.add(new Engagement(minutes * TimeUtils.ONE_MINUTE_MS));
+		}
+
+		final BillingService serial = new BillingServiceImpl();
+		final List<BillingReport> expected = serial.process(engagements);
+
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final BillingService service = new ParallelBillingServiceImpl(pool, 16);
+			final List<BillingReport> actual = service.process(engagements);
+
+			Assert.assertThat(actual.size(), Matchers.is(expected.size()));
+			Assert.assertThat(actual.size(), Matchers.is(900));
+			for (int i = 0; i < actual.size(); i++) {
+				Assert.assertThat(actual.get(i).getEngagement(), Matchers.is(expected.get(i).getEngagement()));
+				Assert.assertThat(actual.get(i).getBilled(), Matchers.equalTo(expected.get(i).getBilled()));
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidThreshold() {
+		new ParallelBillingServiceImpl(ForkJoinPool.commonPool(), 0);
+	}
+}
@@ -0,0 +1,75 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DefaultBillingMetricsTest {
+
+	@Test
+	public void testCounts() {
+		final DefaultBillingMetrics metrics = new DefaultBillingMetrics();
+		metrics.onProcessed(0, 3);
+		metrics.onProcessed(2, 4);
+		metrics.onProcessed(2, 1);
+		metrics.onError();
+		metrics.onBatch(10);
+		metrics.onBatch(20);
+
+		Assert.assertThat(metrics.getProcessedCount(), Matchers.is(8L));
+		Assert.assertThat(metrics.getProcessedCountByTier(), Matchers.equalTo(new long[] { 3, 0, 5 }));
+		Assert.assertThat(metrics.getErrorCount(), Matchers.is(1L));
+		Assert.assertThat(metrics.getBatchCount(), Matchers.is(2L));
+		Assert.assertThat(metrics.getMeanBatchSize(), Matchers.is(15.0));
+		Assert.assertThat(metrics.getMaxBatchSize(), Matchers.is(20L));
+	}
+
+	@Test
+	public void testRegister() throws JMException {
+		final DefaultBillingMetrics metrics = new DefaultBillingMetrics();
+		metrics.onProcessed(1, 42);
+		metrics.onCostCalculated(100);
+
+		final ObjectName name = metrics.register("test");
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			Assert.assertThat((Long) server.getAttribute(name, "ProcessedCount"), Matchers.is(42L));
+			Assert.assertThat((Long) server.getAttribute(name, "CostCalculationNanosMax"), Matchers.is(100L));
+			Assert.assertThat((long[]) server.getAttribute(name, "ProcessedCountByTier"),
+					Matchers.equalTo(new long[] { 0, 42 }));
+		}
+		finally {
+			metrics.unregister();
+		}
+		Assert.assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name), Matchers.is(false));
+	}
+}
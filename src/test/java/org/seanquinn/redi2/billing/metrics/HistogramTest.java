@@ -0,0 +1,66 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.metrics;
+
+import java.util.Random;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void testBuckets() {
+		final Random random = new Random(17);
+		for (int i = 0; i < 100000; i++) {
+			final long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+			final int bucket = Histogram.bucketOf(value);
+			Assert.assertThat(Histogram.highestValueOf(bucket), Matchers.greaterThanOrEqualTo(value));
+			if (bucket > 0) {
+				Assert.assertThat(Histogram.highestValueOf(bucket - 1), Matchers.lessThan(value));
+			}
+			// ** Every bucket is within a sixteenth of the values it counts.
+			Assert.assertThat((double) Histogram.highestValueOf(bucket) - value, Matchers.lessThanOrEqualTo(value / 16.0));
+		}
+		Assert.assertThat(Histogram.highestValueOf(Histogram.bucketOf(Long.MAX_VALUE)), Matchers.is(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentiles() {
+		final Histogram histogram = new Histogram();
+		Assert.assertThat(histogram.getValueAtPercentile(50), Matchers.is(0L));
+
+		for (long value = 1; value <= 10000; value++) {
+			histogram.record(value);
+		}
+		Assert.assertThat(histogram.getCount(), Matchers.is(10000L));
+		Assert.assertThat(histogram.getMax(), Matchers.is(10000L));
+		Assert.assertThat(histogram.getMean(), Matchers.closeTo(5000.5, 0.001));
+		Assert.assertThat((double) histogram.getValueAtPercentile(50), Matchers.closeTo(5000, 5000 / 16.0));
+		Assert.assertThat((double) histogram.getValueAtPercentile(99), Matchers.closeTo(9900, 9900 / 16.0));
+		Assert.assertThat(histogram.getValueAtPercentile(100), Matchers.is(10000L));
+		Assert.assertThat(histogram.getValueAtPercentile(0), Matchers.is(1L));
+	}
+}
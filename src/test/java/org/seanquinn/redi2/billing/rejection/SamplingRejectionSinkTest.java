@@ -0,0 +1,90 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rejection;
+
+import java.util.List;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.domain.Engagement;
+
+public class SamplingRejectionSinkTest {
+
+	@Test
+	public void testCounts() {
+		final SamplingRejectionSink sink = new SamplingRejectionSink();
+		Assert.assertThat(sink.getCount(), Matchers.is(0L));
+		Assert.assertThat(sink.toString(), Matchers.is("0 rejected"));
+
+		sink.reject(new Rejection(RejectionReason.UNPARSEABLE, "minutes.txt", 3, "x"));
+		sink.reject(new Rejection(RejectionReason.UNPARSEABLE, "minutes.txt", 5, "y"));
+		sink.reject(new Rejection(RejectionReason.NEGATIVE_LENGTH, 1, new Engagement(-1)));
+
+		Assert.assertThat(sink.getCount(), Matchers.is(3L));
+		Assert.assertThat(sink.getCount(RejectionReason.UNPARSEABLE), Matchers.is(2L));
+		Assert.assertThat(sink.getCount(RejectionReason.NEGATIVE_LENGTH), Matchers.is(1L));
+		Assert.assertThat(sink.getCount(RejectionReason.BILLING_FAILED), Matchers.is(0L));
+		Assert.assertThat(sink.toString(), Matchers.is("3 rejected (UNPARSEABLE=2, NEGATIVE_LENGTH=1)"));
+	}
+
+	@Test
+	public void testSamplesAreBounded() {
+		final SamplingRejectionSink sink = new SamplingRejectionSink(2);
+		for (int i = 0; i < 5; i++) {
+			sink.reject(new Rejection(RejectionReason.UNPARSEABLE, "minutes.txt", i, "x"));
+		}
+
+		final List<Rejection> samples = sink.getSamples(RejectionReason.UNPARSEABLE);
+		Assert.assertThat(sink.getCount(RejectionReason.UNPARSEABLE), Matchers.is(5L));
+		Assert.assertThat(samples.size(), Matchers.is(2));
+		Assert.assertThat(samples.get(0).getPosition(), Matchers.is(0L));
+		Assert.assertThat(samples.get(1).getPosition(), Matchers.is(1L));
+		Assert.assertThat(samples.get(1).toString(), Matchers.is("UNPARSEABLE in minutes.txt at 1: \"x\""));
+		Assert.assertThat(sink.getSamples(RejectionReason.NEGATIVE_LENGTH), Matchers.empty());
+	}
+
+	@Test
+	public void testConcurrentRejections() throws InterruptedException {
+		final SamplingRejectionSink sink = new SamplingRejectionSink(4);
+		final Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						sink.reject(new Rejection(RejectionReason.BILLING_FAILED, i, new Engagement(i), "failed"));
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertThat(sink.getCount(), Matchers.is(40000L));
+		Assert.assertThat(sink.getSamples(RejectionReason.BILLING_FAILED).size(), Matchers.is(4));
+	}
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.billing.discount.DiscountCalculator;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class BillingRuleFactoryTest {
+
+	@Test
+	public void testCostsMatchBigDecimalArithmetic() {
+		final BillingRuleFactory factory = new BillingRuleFactory();
+		for (long minutes = 0; minutes < 200000; minutes++) {
+			assertCost(factory, minutes * TimeUtils.ONE_MINUTE_MS);
+			assertCost(factory, minutes * TimeUtils.ONE_MINUTE_MS + 12345);
+		}
+	}
+
+	@Test
+	public void testRulesWithoutCentsMethods() {
+		// ** A rule and a discount which only implement the BigDecimal methods.
+		final BillingRule rule = new BillingRule() {
+			public BigDecimal calculateCost(final Engagement engagement) {
+				return scale(engagement.getMinutes() * 1.5);
+			}
+
+			public double getRate() {
+				return 1.5;
+			}
+
+			public double getTimeAdjustmentFactor() {
+				return 1.0;
+			}
+		};
+		final DiscountCalculator discount = new DiscountCalculator() {
+			public BigDecimal calculateDiscount(final Engagement engagement) {
+				return scale(engagement.getHours());
+			}
+		};
+
+		final long lengthMs = 400 * TimeUtils.ONE_MINUTE_MS;
+		Assert.assertThat(rule.calculateCostInCents(lengthMs), Matchers.is(60000L));
+		Assert.assertThat(discount.calculateDiscountInCents(lengthMs), Matchers.is(667L));
+
+		final long[] outCents = new long[3];
+		rule.calculateCostsInCents(new long[] { 0, lengthMs, 2 * lengthMs }, 1, 3, outCents);
+		Assert.assertThat(outCents, Matchers.equalTo(new long[] { 0, 60000, 120000 }));
+
+		final BillingRuleFactory factory = new BillingRuleFactory(Arrays.asList(
+				new BillingTier(0.0, 2.0, 1.0, discount)));
+		Assert.assertThat(factory.getRule(lengthMs).calculateCostInCents(lengthMs), Matchers.is(80000L - 667L));
+	}
+
+	/**
+	 * Asserts that the cost of an engagement is the same as that computed by
+	 * rounding each step of the calculation through {@code BigDecimal}.
+	 */
+	private void assertCost(final BillingRuleFactory factory, final long lengthMs) {
+		final Engagement engagement = new Engagement(lengthMs);
+		final double minutes = engagement.getMinutes();
+
+		BigDecimal expected;
+		if (minutes < factory.getShortEngagementThreshold()) {
+			double digits = 0.0;
+			for (int value = (int) minutes; value > 0; value /= 10) {
+				digits += value % 10;
+			}
+			expected = scale(minutes * 12.0 * 2.0).subtract(scale(digits));
+		}
+		else if (minutes < factory.getMediumEngagementThreshold()) {
+			expected = scale(minutes * 6.0 * 3.4).subtract(scale(Math.sqrt(engagement.getHours())));
+		}
+		else {
+			expected = scale(minutes * 1.0 * 0.6);
+		}
+
+		final BillingRule rule = factory.getRule(engagement);
+		Assert.assertThat(rule.calculateCost(engagement), Matchers.equalTo(expected));
+		Assert.assertThat(rule.calculateCostInCents(lengthMs), Matchers.is(expected.unscaledValue().longValue()));
+	}
+
+	private BigDecimal scale(final double value) {
+		return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP);
+	}
+}
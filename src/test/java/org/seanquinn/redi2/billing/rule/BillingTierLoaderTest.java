@@ -0,0 +1,128 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.billing.discount.MemoizingDiscountCalculator;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class BillingTierLoaderTest {
+
+	@Test
+	public void testParseDefaultTiers() {
+		final Properties properties = new Properties();
+		properties.setProperty("tier.short.rate", "2.0");
+		properties.setProperty("tier.short.factor", "12.0");
+		properties.setProperty("tier.short.discount", "digit-additive");
+		properties.setProperty("tier.medium.from", "1000");
+		properties.setProperty("tier.medium.rate", "3.4");
+		properties.setProperty("tier.medium.factor", "6.0");
+		properties.setProperty("tier.medium.discount", "square-root");
+		properties.setProperty("tier.long.from", "100000");
+		properties.setProperty("tier.long.rate", "0.6");
+
+		final BillingRuleFactory expected = new BillingRuleFactory();
+		final BillingRuleFactory actual = new BillingRuleFactory(BillingTierLoader.parse(properties));
+		Assert.assertThat(actual.getTierCount(), Matchers.is(3));
+		Assert.assertThat(actual.getMediumEngagementDiscountCalculator(), Matchers.nullValue());
+		Assert.assertThat(expected.getMediumEngagementDiscountCalculator(), Matchers.nullValue());
+		assertSameCosts(actual, expected);
+
+		// ** Memoizing the medium tier's discounts is opt-in, and changes no cost.
+		properties.setProperty("tier.medium.memoize", "true");
+		final BillingRuleFactory memoized = new BillingRuleFactory(BillingTierLoader.parse(properties));
+		Assert.assertThat(memoized.getMediumEngagementDiscountCalculator(),
+				Matchers.instanceOf(MemoizingDiscountCalculator.class));
+		assertSameCosts(memoized, expected);
+	}
+
+	@Test
+	public void testManyTiers() {
+		final List<BillingTier> tiers = new ArrayList<BillingTier>();
+		for (int i = 47; i >= 0; i--) {
+			tiers.add(new BillingTier(i * i * 100.0, 1.0 + i, 1.0, null));
+		}
+		final BillingRuleFactory factory = new BillingRuleFactory(tiers);
+		Assert.assertThat(factory.getTierCount(), Matchers.is(48));
+
+		for (long minutes = 0; minutes < 250000; minutes += 13) {
+			int expected = 0;
+			while (expected + 1 < 48 && (expected + 1) * (expected + 1) * 100 <= minutes) {
+				expected++;
+			}
+			final long lengthMs = minutes * TimeUtils.ONE_MINUTE_MS;
+			Assert.assertThat(factory.getTier(lengthMs), Matchers.is(expected));
+			Assert.assertThat(factory.getRule(lengthMs), Matchers.sameInstance(factory.getTiers().get(expected).getRule()));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnrecognisedProperty() {
+		final Properties properties = new Properties();
+		properties.setProperty("tier.short.rate", "2.0");
+		properties.setProperty("tier.short.rates", "2.0");
+		BillingTierLoader.parse(properties);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingRate() {
+		final Properties properties = new Properties();
+		properties.setProperty("tier.short.factor", "2.0");
+		BillingTierLoader.parse(properties);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoTierFromZero() {
+		final Properties properties = new Properties();
+		properties.setProperty("tier.short.from", "10");
+		properties.setProperty("tier.short.rate", "2.0");
+		new BillingRuleFactory(BillingTierLoader.parse(properties));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateThreshold() {
+		final Properties properties = new Properties();
+		properties.setProperty("tier.short.rate", "2.0");
+		properties.setProperty("tier.a.from", "10");
+		properties.setProperty("tier.a.rate", "2.0");
+		properties.setProperty("tier.b.from", "10");
+		properties.setProperty("tier.b.rate", "3.0");
+		new BillingRuleFactory(BillingTierLoader.parse(properties));
+	}
+
+	private void assertSameCosts(final BillingRuleFactory actual, final BillingRuleFactory expected) {
+		for (long minutes = 0; minutes < 200000; minutes += 7) {
+			final long lengthMs = minutes * TimeUtils.ONE_MINUTE_MS + 4321;
+			Assert.assertThat(actual.getTier(lengthMs), Matchers.is(expected.getTier(lengthMs)));
+			Assert.assertThat(actual.getRule(lengthMs).calculateCostInCents(lengthMs),
+					Matchers.is(expected.getRule(lengthMs).calculateCostInCents(lengthMs)));
+		}
+	}
+}
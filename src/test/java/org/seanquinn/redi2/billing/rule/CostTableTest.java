@@ -0,0 +1,76 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class CostTableTest {
+
+	@Test
+	public void testCostsMatchRules() {
+		final BillingRuleFactory factory = new BillingRuleFactory();
+		final CostTable table = new CostTable(factory);
+		Assert.assertThat(table.getMinutes(), Matchers.is(100000));
+
+		table.build();
+		Assert.assertThat(table.isReady(), Matchers.is(true));
+		for (int minutes = 0; minutes < table.getMinutes(); minutes++) {
+			final long lengthMs = minutes * TimeUtils.ONE_MINUTE_MS;
+			Assert.assertThat(table.covers(lengthMs), Matchers.is(true));
+			Assert.assertThat("cost of " + minutes + " minutes", table.getCostInCents(lengthMs),
+					Matchers.is(factory.getRule(lengthMs).calculateCostInCents(lengthMs)));
+		}
+	}
+
+	@Test
+	public void testCovers() {
+		final CostTable table = new CostTable(new BillingRuleFactory(), 1000);
+		Assert.assertThat(table.covers(0), Matchers.is(true));
+		Assert.assertThat(table.covers(999 * TimeUtils.ONE_MINUTE_MS), Matchers.is(true));
+		Assert.assertThat(table.covers(1000 * TimeUtils.ONE_MINUTE_MS), Matchers.is(false));
+		Assert.assertThat(table.covers(400 * TimeUtils.ONE_MINUTE_MS + 1), Matchers.is(false));
+		Assert.assertThat(table.covers(-TimeUtils.ONE_MINUTE_MS), Matchers.is(false));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNotReady() {
+		final CostTable table = new CostTable(new BillingRuleFactory(), 1000);
+		Assert.assertThat(table.isReady(), Matchers.is(false));
+		table.getCostInCents(400 * TimeUtils.ONE_MINUTE_MS);
+	}
+
+	@Test
+	public void testBuildInBackground() throws InterruptedException {
+		final CostTable table = new CostTable(new BillingRuleFactory());
+		table.buildInBackground();
+
+		// ** Building synchronously waits for (or does) the background build.
+		table.build();
+		Assert.assertThat(table.isReady(), Matchers.is(true));
+		Assert.assertThat(table.getCostInCents(400 * TimeUtils.ONE_MINUTE_MS), Matchers.is(959600L));
+	}
+}
@@ -0,0 +1,113 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class RuleSetFileWatcherTest {
+
+	@Test
+	public void testPoll() throws IOException {
+		final File file = File.createTempFile("redi2-tiers-", ".properties");
+		try {
+			write(file, "tier.all.rate=1.0\n");
+			final RuleSetRegistry registry = new RuleSetRegistry(BillingTierLoader.load(file.getPath()));
+			final RuleSetFileWatcher watcher = new RuleSetFileWatcher(registry, file.getPath());
+
+			// ** Nothing has changed since the active rules were loaded.
+			Assert.assertThat(watcher.poll(), Matchers.nullValue());
+
+			// ** A change is only loaded once the file has stayed the same for a poll.
+			write(file, "tier.all.rate=2.0\ntier.long.from=100\ntier.long.rate=1.5\n");
+			Assert.assertThat(watcher.poll(), Matchers.nullValue());
+			final RuleSet reloaded = watcher.poll();
+			Assert.assertThat(reloaded.getVersion(), Matchers.is(2L));
+			Assert.assertThat(registry.getRuleSet(), Matchers.sameInstance(reloaded));
+			Assert.assertThat(reloaded.getRuleFactory().getTierCount(), Matchers.is(2));
+			Assert.assertThat(watcher.poll(), Matchers.nullValue());
+
+			// ** A file which cannot be loaded leaves the active rules in place.
+			write(file, "tier.all.rate=free\n");
+			Assert.assertThat(watcher.poll(), Matchers.nullValue());
+			Assert.assertThat(watcher.poll(), Matchers.nullValue());
+			Assert.assertThat(registry.getRuleSet(), Matchers.sameInstance(reloaded));
+			watcher.close();
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testPollWhileWriting() throws IOException {
+		final File file = File.createTempFile("redi2-tiers-", ".properties");
+		try {
+			write(file, "tier.all.rate=1.0\n");
+			final RuleSetRegistry registry = new RuleSetRegistry(BillingTierLoader.load(file.getPath()));
+			final RuleSetFileWatcher watcher = new RuleSetFileWatcher(registry, file.getPath());
+
+			// ** Each poll sees a valid file, but one which is still growing; none is published.
+			write(file, "tier.all.rate=2.0\n");
+			Assert.assertThat(watcher.poll(), Matchers.nullValue());
+			write(file, "tier.all.rate=2.0\ntier.medium.from=100\ntier.medium.rate=1.5\n");
+			Assert.assertThat(watcher.poll(), Matchers.nullValue());
+			write(file, "tier.all.rate=2.0\ntier.medium.from=100\ntier.medium.rate=1.5\n"
+					+ "tier.long.from=1000\ntier.long.rate=1.0\n");
+			Assert.assertThat(watcher.poll(), Matchers.nullValue());
+			Assert.assertThat(registry.getRuleSet().getVersion(), Matchers.is(1L));
+
+			// ** Once it has settled, the whole file is published.
+			final RuleSet reloaded = watcher.poll();
+			Assert.assertThat(reloaded.getVersion(), Matchers.is(2L));
+			Assert.assertThat(reloaded.getRuleFactory().getTierCount(), Matchers.is(3));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Overwrites the passed file, moving its modification time on so that the
+	 * change is seen even on file systems with a coarse resolution.
+	 */
+	private static void write(final File file, final String contents) throws IOException {
+		final long lastModified = file.lastModified();
+		final Writer writer = new FileWriter(file);
+		try {
+			writer.write(contents);
+		}
+		finally {
+			writer.close();
+		}
+		file.setLastModified(lastModified + 2 * TimeUtils.ONE_MINUTE_MS);
+	}
+}
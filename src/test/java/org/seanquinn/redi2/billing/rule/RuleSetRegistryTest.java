@@ -0,0 +1,82 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.billing.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RuleSetRegistryTest {
+
+	@Test
+	public void testPublish() {
+		final BillingRuleFactory first = new BillingRuleFactory();
+		final RuleSetRegistry registry = new RuleSetRegistry(first);
+		final List<RuleSet> published = new ArrayList<RuleSet>();
+		registry.addListener(new RuleSetListener() {
+			public void onPublished(final RuleSet previous, final RuleSet current) {
+				published.add(previous);
+				published.add(current);
+			}
+		});
+
+		final RuleSet initial = registry.getRuleSet();
+		Assert.assertThat(initial.getVersion(), Matchers.is(1L));
+		Assert.assertThat(initial.getRuleFactory(), Matchers.sameInstance(first));
+		Assert.assertThat(initial.getCostTable(), Matchers.nullValue());
+
+		final BillingRuleFactory second = new BillingRuleFactory();
+		final RuleSet next = registry.publish(second);
+		Assert.assertThat(next.getVersion(), Matchers.is(2L));
+		Assert.assertThat(next.getRuleFactory(), Matchers.sameInstance(second));
+		Assert.assertThat(next.getCostTable(), Matchers.nullValue());
+		Assert.assertThat(registry.getRuleSet(), Matchers.sameInstance(next));
+
+		// ** The rule set taken before the publish is unchanged.
+		Assert.assertThat(initial.getRuleFactory(), Matchers.sameInstance(first));
+		Assert.assertThat(published.size(), Matchers.is(2));
+		Assert.assertThat(published.get(0), Matchers.sameInstance(initial));
+		Assert.assertThat(published.get(1), Matchers.sameInstance(next));
+	}
+
+	@Test
+	public void testPublishRebuildsCostTable() {
+		final CostTable table = new CostTable(new BillingRuleFactory(), 1000);
+		table.build();
+		final RuleSetRegistry registry = new RuleSetRegistry(table);
+
+		final BillingRuleFactory next = new BillingRuleFactory();
+		final RuleSet ruleSet = registry.publish(next);
+		Assert.assertThat(ruleSet.getCostTable(), Matchers.not(Matchers.sameInstance(table)));
+		Assert.assertThat(ruleSet.getCostTable().getRuleFactory(), Matchers.sameInstance(next));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMismatchedCostTable() {
+		new RuleSet(1, new BillingRuleFactory(), new CostTable(new BillingRuleFactory(), 10));
+	}
+}
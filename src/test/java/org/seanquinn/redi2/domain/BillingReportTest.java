@@ -0,0 +1,107 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.domain.id.ReportIdGenerator;
+import org.seanquinn.redi2.domain.id.SequentialReportIdGenerator;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class BillingReportTest {
+
+	@Test
+	public void testUuidIsGeneratedLazily() {
+		final CountingReportIdGenerator generator = new CountingReportIdGenerator();
+		final BillingReport report = new BillingReport(new Engagement(400 * TimeUtils.ONE_MINUTE_MS),
+				new BigDecimal("9596.00"), generator);
+		Assert.assertThat(generator.count.get(), Matchers.is(0));
+
+		final UUID uuid = report.getUuid();
+		Assert.assertThat(generator.count.get(), Matchers.is(1));
+		Assert.assertThat(report.getUuid(), Matchers.sameInstance(uuid));
+		Assert.assertThat(report.getUuidAsString(), Matchers.equalTo(uuid.toString()));
+		Assert.assertThat(generator.count.get(), Matchers.is(1));
+	}
+
+	@Test
+	public void testOrderedUuidIsGeneratedOnCreation() {
+		final ReportIdGenerator generator = new SequentialReportIdGenerator(42L);
+		final BillingReport first = new BillingReport(new Engagement(400 * TimeUtils.ONE_MINUTE_MS),
+				new BigDecimal("9596.00"), generator);
+		final BillingReport second = new BillingReport(new Engagement(400 * TimeUtils.ONE_MINUTE_MS),
+				new BigDecimal("9596.00"), generator);
+
+		// ** The second report's ID is requested first, but still sorts after the first's.
+		Assert.assertThat(second.getUuid(), Matchers.greaterThan(first.getUuid()));
+	}
+
+	@Test
+	public void testUuidIsSerialized() throws Exception {
+		final CountingReportIdGenerator generator = new CountingReportIdGenerator();
+		final BillingReport report = new BillingReport(new Engagement(400 * TimeUtils.ONE_MINUTE_MS),
+				new BigDecimal("9596.00"), generator);
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(report);
+		out.close();
+		Assert.assertThat(generator.count.get(), Matchers.is(1));
+
+		final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		final BillingReport copy = (BillingReport) in.readObject();
+		in.close();
+		Assert.assertThat(copy.getUuid(), Matchers.equalTo(report.getUuid()));
+		Assert.assertThat(copy.getBilled(), Matchers.equalTo(report.getBilled()));
+		Assert.assertThat(generator.count.get(), Matchers.is(1));
+	}
+
+	@Test
+	public void testDefaultUuidIsRandom() {
+		final BillingReport report = new BillingReport(new Engagement(400 * TimeUtils.ONE_MINUTE_MS),
+				new BigDecimal("9596.00"));
+		Assert.assertThat(report.getUuid().version(), Matchers.is(4));
+	}
+
+	/**
+	 * Generator which counts the IDs it has generated.
+	 */
+	private static class CountingReportIdGenerator implements ReportIdGenerator {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public UUID nextId() {
+			return new UUID(0, count.incrementAndGet());
+		}
+	}
+}
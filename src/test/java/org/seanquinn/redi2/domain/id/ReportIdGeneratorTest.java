@@ -0,0 +1,69 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.domain.id;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReportIdGeneratorTest {
+
+	@Test
+	public void testFastRandomReportIdGenerator() {
+		final ReportIdGenerator generator = new FastRandomReportIdGenerator();
+		final Set<UUID> ids = new HashSet<UUID>();
+		for (int i = 0; i < 10000; i++) {
+			final UUID id = generator.nextId();
+			Assert.assertThat(id.version(), Matchers.is(4));
+			Assert.assertThat(id.variant(), Matchers.is(2));
+			ids.add(id);
+		}
+		Assert.assertThat(ids.size(), Matchers.is(10000));
+	}
+
+	@Test
+	public void testSequentialReportIdGenerator() {
+		final ReportIdGenerator generator = new SequentialReportIdGenerator();
+		UUID previous = generator.nextId();
+		Assert.assertThat(previous.version(), Matchers.is(4));
+		Assert.assertThat(previous.variant(), Matchers.is(2));
+		for (int i = 0; i < 10000; i++) {
+			final UUID id = generator.nextId();
+			Assert.assertThat(id.getMostSignificantBits(), Matchers.is(previous.getMostSignificantBits()));
+			Assert.assertThat(id.compareTo(previous), Matchers.greaterThan(0));
+			previous = id;
+		}
+	}
+
+	@Test
+	public void testSequentialReportIdGeneratorPrefix() {
+		final ReportIdGenerator generator = new SequentialReportIdGenerator(42L);
+		Assert.assertThat(generator.nextId(), Matchers.equalTo(new UUID(42L, 0x8000000000000001L)));
+		Assert.assertThat(generator.nextId(), Matchers.equalTo(new UUID(42L, 0x8000000000000002L)));
+	}
+}
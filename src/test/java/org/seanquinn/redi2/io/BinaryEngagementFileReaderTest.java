@@ -0,0 +1,157 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class BinaryEngagementFileReaderTest {
+
+	@Test
+	public void testRead() throws IOException {
+		final List<Long> expected = new ArrayList<Long>();
+		final File file = write(10000, expected);
+		try {
+			Assert.assertThat(file.length(), Matchers.is(16L + 8 * 10000));
+			Assert.assertTrue(BinaryEngagementFile.isBinary(file.getPath()));
+			Assert.assertThat(read(new BinaryEngagementFileReader(), file), Matchers.equalTo(expected));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testReadAcrossWindows() throws IOException {
+		final List<Long> expected = new ArrayList<Long>();
+		final File file = write(50, expected);
+		try {
+			for (int chunkSize = 1; chunkSize < 8; chunkSize++) {
+				for (int windowRecords = 1; windowRecords < 8; windowRecords++) {
+					Assert.assertThat(read(new BinaryEngagementFileReader(chunkSize, windowRecords), file),
+							Matchers.equalTo(expected));
+				}
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testConvert() throws IOException {
+		final File text = write("400\r\n4000\r\n\r\nd\n-1400\r 12.5 \n1e3\n");
+		final File binary = File.createTempFile("redi2-engagements-", ".bin");
+		try {
+			Assert.assertFalse(BinaryEngagementFile.isBinary(text.getPath()));
+			Assert.assertThat(new MinuteFileConverter().convert(text.getPath(), binary.getPath()), Matchers.is(5L));
+			Assert.assertThat(read(new BinaryEngagementFileReader(), binary), Matchers.contains(
+					400 * TimeUtils.ONE_MINUTE_MS, 4000 * TimeUtils.ONE_MINUTE_MS, -1400 * TimeUtils.ONE_MINUTE_MS,
+					12 * TimeUtils.ONE_MINUTE_MS, 1000 * TimeUtils.ONE_MINUTE_MS));
+		}
+		finally {
+			text.delete();
+			binary.delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadPartialRecord() throws IOException {
+		final File file = File.createTempFile("redi2-engagements-", ".bin");
+		try {
+			final BinaryEngagementFileWriter writer = new BinaryEngagementFileWriter(file.getPath());
+			writer.write(1);
+			writer.close();
+
+			final FileOutputStream out = new FileOutputStream(file, true);
+			out.write(new byte[] { 1, 2, 3 });
+			out.close();
+
+			read(new BinaryEngagementFileReader(), file);
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadText() throws IOException {
+		final File file = write("400\n4000\n400000\n0\n");
+		try {
+			read(new BinaryEngagementFileReader(), file);
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	private List<Long> read(final BinaryEngagementFileReader reader, final File file) throws IOException {
+		final List<Long> values = new ArrayList<Long>();
+		final long count = reader.read(file.getPath(), new EngagementLengthHandler() {
+			public void onLengths(final long[] lengthsMs, final int count) {
+				for (int i = 0; i < count; i++) {
+					values.add(lengthsMs[i]);
+				}
+			}
+		});
+		Assert.assertThat(count, Matchers.is((long) values.size()));
+		return values;
+	}
+
+	private File write(final int count, final List<Long> lengthsMs) throws IOException {
+		final File file = File.createTempFile("redi2-engagements-", ".bin");
+		final BinaryEngagementFileWriter writer = new BinaryEngagementFileWriter(file.getPath());
+		try {
+			for (long i = 0; i < count; i++) {
+				final long lengthMs = i * i * 31 - 5000;
+				writer.write(lengthMs);
+				lengthsMs.add(lengthMs);
+			}
+		}
+		finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private File write(final String contents) throws IOException {
+		final File file = File.createTempFile("redi2-minutes-", ".txt");
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(contents.getBytes("US-ASCII"));
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+}
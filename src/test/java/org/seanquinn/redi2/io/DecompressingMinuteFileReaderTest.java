@@ -0,0 +1,203 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.io.codec.InputCodec;
+
+public class DecompressingMinuteFileReaderTest {
+
+	private static final String CONTENTS = "400\r\n4000\r\n\r\nd\n-1400\r 12.5 \n"
+			+ "1e3\n400d\n.5\n-0\n12345678901234567890\n0.1\n+7\n7.\n4000001005";
+
+	@Test
+	public void testReadGzip() throws IOException {
+		final File plain = write(CONTENTS.getBytes("US-ASCII"));
+		final File compressed = write(gzip(CONTENTS));
+		try {
+			final List<Object> expected = read(new BufferedMinuteFileReader(), plain);
+			Assert.assertThat(read(new DecompressingMinuteFileReader(), compressed), Matchers.equalTo(expected));
+			Assert.assertThat(read(new DecompressingMinuteFileReader(), plain), Matchers.equalTo(expected));
+
+			// ** Lines (and line endings) split across chunks are gathered back together.
+			for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+				final List<Object> actual = read(new DecompressingMinuteFileReader(
+						new BufferedMinuteFileReader(), chunkSize, 2), compressed);
+				Assert.assertThat("chunk of " + chunkSize, actual, Matchers.equalTo(expected));
+			}
+		}
+		finally {
+			plain.delete();
+			compressed.delete();
+		}
+	}
+
+	@Test
+	public void testReadGzipManyChunks() throws IOException {
+		// ** Lines of varying length, so that line after line spans the chunks once the first one has.
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			sb.append(i * 7919L % 100003).append(i % 5 == 0 ? "\r\n" : "\n");
+		}
+		final File plain = write(sb.toString().getBytes("US-ASCII"));
+		final File compressed = write(gzip(sb.toString()));
+		try {
+			final List<Object> expected = read(new BufferedMinuteFileReader(), plain);
+			Assert.assertThat(read(new DecompressingMinuteFileReader(), compressed), Matchers.equalTo(expected));
+			Assert.assertThat(read(new DecompressingMinuteFileReader(
+					new BufferedMinuteFileReader(), 1000, 2), compressed), Matchers.equalTo(expected));
+		}
+		finally {
+			plain.delete();
+			compressed.delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadTruncatedGzip() throws IOException {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			sb.append(i).append('\n');
+		}
+		final byte[] bytes = gzip(sb.toString());
+		final byte[] truncated = new byte[bytes.length / 2];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+		final File file = write(truncated);
+		try {
+			read(new DecompressingMinuteFileReader(), file);
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testReadFailingCodec() throws IOException {
+		final StringBuilder sb = new StringBuilder(FailingInputCodec.MAGIC);
+		for (int i = 0; i < 100000; i++) {
+			sb.append(i).append('\n');
+		}
+		final File file = write(sb.toString().getBytes("US-ASCII"));
+		try {
+			read(new DecompressingMinuteFileReader(new BufferedMinuteFileReader(), 1000, 2), file);
+			Assert.fail("The codec's failure was not reported.");
+		}
+		catch (final IOException ex) {
+			Assert.assertThat(ex.getCause(), Matchers.instanceOf(IllegalStateException.class));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	private List<Object> read(final MinuteFileReader reader, final File file) throws IOException {
+		final List<Object> values = new ArrayList<Object>();
+		reader.read(file.getPath(), new MinuteFileHandler() {
+			public void onMinutes(final double minutes) {
+				values.add(minutes);
+			}
+
+			public void onUnparseable(final String line) {
+				values.add(line);
+			}
+		});
+		return values;
+	}
+
+	private byte[] gzip(final String contents) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final GZIPOutputStream out = new GZIPOutputStream(bytes);
+		out.write(contents.getBytes("US-ASCII"));
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private File write(final byte[] contents) throws IOException {
+		final File file = File.createTempFile("redi2-minutes-", ".txt");
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(contents);
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+
+	/**
+	 * A codec, registered for the tests, whose stream passes a file through
+	 * unchanged but fails once part of it has been read.
+	 */
+	public static class FailingInputCodec implements InputCodec {
+
+		static final String MAGIC = "REDI2-FAIL\n";
+
+		public String getName() {
+			return "failing";
+		}
+
+		public boolean matches(final byte[] header, final int length) {
+			final byte[] magic = MAGIC.getBytes();
+			if (length < magic.length) {
+				return false;
+			}
+			for (int i = 0; i < magic.length; i++) {
+				if (header[i] != magic[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public InputStream decompress(final InputStream in) throws IOException {
+			return new FilterInputStream(in) {
+
+				private int remaining = 50000;
+
+				@Override
+				public int read(final byte[] b, final int off, final int len) throws IOException {
+					if (remaining <= 0) {
+						throw new IllegalStateException("Corrupt block.");
+					}
+					final int n = super.read(b, off, Math.min(len, remaining));
+					remaining -= Math.max(n, 0);
+					return n;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MappedMinuteFileReaderTest {
+
+	private static final String CONTENTS = "400\r\n4000\r\n\r\nd\n-1400\r 12.5 \n"
+			+ "1e3\n400d\n.5\n-0\n12345678901234567890\n0.1\n+7\n7.\n4000001005";
+
+	@Test
+	public void testReadMatchesBufferedReader() throws IOException {
+		final File file = write(CONTENTS);
+		try {
+			final List<Object> expected = read(new BufferedMinuteFileReader(), file);
+			final List<Object> actual = read(new MappedMinuteFileReader(), file);
+
+			Assert.assertThat(actual, Matchers.equalTo(expected));
+			Assert.assertThat(actual, Matchers.hasItems((Object) 400.0, "", "d", -1400.0, 12.5, 1000.0));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testReadAcrossWindows() throws IOException {
+		final File file = write(CONTENTS);
+		try {
+			final List<Object> expected = read(new BufferedMinuteFileReader(), file);
+			for (int windowSize = 21; windowSize < 64; windowSize++) {
+				final List<Object> actual = read(new MappedMinuteFileReader(windowSize), file);
+				Assert.assertThat("window of " + windowSize, actual, Matchers.equalTo(expected));
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testReadNonExistantFile() throws IOException {
+		read(new MappedMinuteFileReader(), new File("./_assets/missing"));
+	}
+
+	private List<Object> read(final MinuteFileReader reader, final File file) throws IOException {
+		final List<Object> values = new ArrayList<Object>();
+		reader.read(file.getPath(), new MinuteFileHandler() {
+			public void onMinutes(final double minutes) {
+				values.add(minutes);
+			}
+
+			public void onUnparseable(final String line) {
+				values.add(line);
+			}
+		});
+		return values;
+	}
+
+	private File write(final String contents) throws IOException {
+		final File file = File.createTempFile("redi2-minutes-", ".txt");
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(contents.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+		return file;
+	}
+}
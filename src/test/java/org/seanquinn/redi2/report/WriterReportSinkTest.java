@@ -0,0 +1,82 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.seanquinn.redi2.domain.BillingReport;
+import org.seanquinn.redi2.domain.Engagement;
+import org.seanquinn.redi2.utils.CurrencyUtils;
+import org.seanquinn.redi2.utils.TimeUtils;
+
+public class WriterReportSinkTest {
+
+	@Test
+	public void testWriteInvoice() throws Exception {
+		final BillingReport report = new BillingReport(new Engagement(400000 * TimeUtils.ONE_MINUTE_MS + 123),
+				new BigDecimal("240000.07"));
+
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		final ReportSink sink = new ConsoleReportSink(new PrintStream(actual));
+		sink.writeInvoice(report);
+		sink.writeTotals(new BigDecimal("331187.84"), new BigDecimal("110395.95"));
+		sink.close();
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		final PrintStream out = new PrintStream(expected);
+		out.println(MessageFormat.format("INVOICE", new Object[0]));
+		out.println(MessageFormat.format("==========================", new Object[0]));
+		out.println(MessageFormat.format("Report ID:     {0}", report.getUuidAsString()));
+		out.println(MessageFormat.format("Billed For:    {0} hrs.", report.getEngagement().getHours()));
+		out.println(MessageFormat.format("Amount Billed: {0}", report.getBilledAsCurrency()));
+		out.println(MessageFormat.format("\n", new Object[0]));
+		out.println(MessageFormat.format("\nTOTAL BILLED: {0}", CurrencyUtils.asCurrency(331187.84)));
+		out.println(MessageFormat.format("AVG. CHARGE PER CUSTOMER: {0}", CurrencyUtils.asCurrency(110395.95)));
+		out.close();
+
+		Assert.assertThat(actual.toString(), Matchers.equalTo(expected.toString()));
+	}
+
+	@Test
+	public void testBuffered() throws Exception {
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		final ReportSink sink = new ConsoleReportSink(new PrintStream(actual));
+		final BillingReport report = new BillingReport(new Engagement(400 * TimeUtils.ONE_MINUTE_MS),
+				new BigDecimal("9596.00"));
+
+		for (int i = 0; i < 100; i++) {
+			sink.writeInvoice(report);
+		}
+		Assert.assertThat(actual.size(), Matchers.is(0));
+
+		sink.flush();
+		Assert.assertThat(actual.size(), Matchers.greaterThan(0));
+	}
+}
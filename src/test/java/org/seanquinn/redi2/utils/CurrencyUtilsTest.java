@@ -0,0 +1,152 @@
+/* Copyright (c) 2014 Sean Quinn
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.seanquinn.redi2.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CurrencyUtilsTest {
+
+	@Test
+	public void testToCentsHalfUp() {
+		assertToCents(0.0);
+		assertToCents(-0.0);
+		assertToCents(0.005);
+		assertToCents(0.015);
+		assertToCents(0.125);
+		assertToCents(1.005);
+		assertToCents(2.675);
+		assertToCents(-2.675);
+		assertToCents(1.115);
+		assertToCents(9596.0);
+		assertToCents(81591.84);
+		assertToCents(Math.sqrt(66.66666666666667));
+		assertToCents(Math.nextUp(0.125));
+		assertToCents(Math.nextDown(0.125));
+		assertToCents(9999999999999.995);
+		assertToCents(1e15 + 0.5);
+		assertToCents(Double.MIN_VALUE);
+	}
+
+	@Test
+	public void testToCentsRandom() {
+		final Random random = new Random(2014);
+		for (int i = 0; i < 1000000; i++) {
+			// ** Amounts that sit on (or next to) a half cent are the interesting ones.
+			final double halfCent = (random.nextInt(100000000) + 0.5) / 100.0;
+			assertToCents(halfCent);
+			assertToCents(Math.nextUp(halfCent));
+			assertToCents(Math.nextDown(halfCent));
+			assertToCents(random.nextDouble() * Math.pow(10, random.nextInt(14)));
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testToCentsNotANumber() {
+		CurrencyUtils.toCents(Double.NaN);
+	}
+
+	@Test
+	public void testFromCents() {
+		final BigDecimal expected = new BigDecimal(81591.84).setScale(2, RoundingMode.HALF_UP);
+		Assert.assertThat(CurrencyUtils.fromCents(8159184L), Matchers.equalTo(expected));
+	}
+
+	@Test
+	public void testAsCurrencyIntegerIsDollars() {
+		Assert.assertThat(CurrencyUtils.asCurrency(5), Matchers.equalTo("$5.00"));
+		Assert.assertThat(CurrencyUtils.asCurrency(5L, Locale.US), Matchers.equalTo("$5.00"));
+	}
+
+	@Test
+	public void testAsCurrencyFromCents() {
+		assertAsCurrency(0L, Locale.US);
+		assertAsCurrency(5L, Locale.US);
+		assertAsCurrency(99L, Locale.US);
+		assertAsCurrency(100000L, Locale.US);
+		assertAsCurrency(959600L, Locale.US);
+		assertAsCurrency(8159184L, Locale.US);
+		assertAsCurrency(999999999999999L, Locale.US);
+		assertAsCurrency(1000000000000000L, Locale.US);
+		assertAsCurrency(-8159184L, Locale.US);
+		assertAsCurrency(8159184L, Locale.GERMANY);
+		assertAsCurrency(8159184L, Locale.JAPAN);
+		Assert.assertThat(CurrencyUtils.asCurrencyFromCents(8159184L), Matchers.equalTo("$81,591.84"));
+	}
+
+	@Test
+	public void testAsCurrencyFromCentsRandom() {
+		final Random random = new Random(2014);
+		for (int i = 0; i < 100000; i++) {
+			assertAsCurrency((long) (random.nextDouble() * Math.pow(10, random.nextInt(16))), Locale.US);
+		}
+	}
+
+	@Test
+	public void testAsCurrencyIsThreadSafe() throws Exception {
+		final Thread[] threads = new Thread[4];
+		final Throwable[] failures = new Throwable[threads.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int index = t;
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						final Random random = new Random(index);
+						final NumberFormat formatter = NumberFormat.getCurrencyInstance(Locale.GERMANY);
+						for (int i = 0; i < 20000; i++) {
+							final double value = random.nextInt(100000000) / 100.0;
+							Assert.assertThat(CurrencyUtils.asCurrency(value, Locale.GERMANY),
+									Matchers.equalTo(formatter.format(value)));
+						}
+					}
+					catch (final Throwable ex) {
+						failures[index] = ex;
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+			Assert.assertThat(failures[t], Matchers.nullValue());
+		}
+	}
+
+	private void assertAsCurrency(final long cents, final Locale locale) {
+		final String expected = NumberFormat.getCurrencyInstance(locale).format(cents / 100.0);
+		Assert.assertThat("currency of " + cents, CurrencyUtils.asCurrencyFromCents(cents, locale), Matchers.equalTo(expected));
+	}
+
+	private void assertToCents(final double value) {
+		final long expected = new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+		Assert.assertThat("cents of " + value, CurrencyUtils.toCents(value), Matchers.is(expected));
+	}
+}